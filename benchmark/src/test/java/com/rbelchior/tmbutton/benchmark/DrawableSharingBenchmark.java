@@ -0,0 +1,100 @@
+package com.rbelchior.tmbutton.benchmark;
+
+import android.app.Activity;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import com.rbelchior.tmbutton.TMButton;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Heap retained by 1,000 checked buttons whose icons share one drawable state, compared to
+ * buttons each holding a mutated copy of the icon. Runs on API 28, where the icon view shows
+ * the icon drawable itself instead of a render node wrapper.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DrawableSharingBenchmark {
+
+    private static final int BUTTONS = 1000;
+
+    private ActivityController<Activity> activityController;
+    private Activity activity;
+    private FrameLayout content;
+
+    @Before
+    public void setUp() {
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        activity = activityController.get();
+        content = new FrameLayout(activity);
+        activity.setContentView(content);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @After
+    public void tearDown() {
+        activityController.pause().stop().destroy();
+    }
+
+    @Test
+    public void sharedIcons() throws Exception {
+        long before = HostBenchmark.getUsedHeapAfterGc();
+        TMButton[] buttons = inflateButtons(false);
+        long retained = HostBenchmark.getUsedHeapAfterGc() - before;
+
+        HostBenchmark.report("DrawableSharingBenchmark.sharedIcons" + BUTTONS, retained / BUTTONS, "B/button");
+        assertSame(getIcon(buttons[0]).getConstantState(), getIcon(buttons[BUTTONS - 1]).getConstantState());
+    }
+
+    @Test
+    public void mutatedIcons() throws Exception {
+        long before = HostBenchmark.getUsedHeapAfterGc();
+        TMButton[] buttons = inflateButtons(true);
+        long retained = HostBenchmark.getUsedHeapAfterGc() - before;
+
+        HostBenchmark.report("DrawableSharingBenchmark.mutatedIcons" + BUTTONS, retained / BUTTONS, "B/button");
+        assertNotSame(getIcon(buttons[0]).getConstantState(), getIcon(buttons[BUTTONS - 1]).getConstantState());
+    }
+
+    /**
+     * Inflate and check the buttons, so their color filter is set.
+     *
+     * @param mutateIcons if true, replace each icon by a mutated copy, as before icons were shared
+     */
+    private TMButton[] inflateButtons(boolean mutateIcons) {
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        TMButton[] buttons = new TMButton[BUTTONS];
+        for (int i = 0; i < BUTTONS; i++) {
+            View row = inflater.inflate(R.layout.list_item, content, false);
+            TMButton button = row.findViewById(R.id.tm_button);
+            if (mutateIcons) {
+                button.setIconDrawable(activity.getDrawable(R.drawable.ic_whatshot_black_24dp).mutate());
+            }
+            button.bind(true);
+            buttons[i] = button;
+        }
+        return buttons;
+    }
+
+    private static Drawable getIcon(TMButton button) {
+        ViewGroup iconLayout = (ViewGroup) button.getChildAt(button.getChildCount() - 1);
+        return ((ImageView) iconLayout.getChildAt(0)).getDrawable();
+    }
+}
@@ -0,0 +1,105 @@
+package com.rbelchior.tmbutton.benchmark;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Checkable;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+
+import com.rbelchior.tmbutton.TMButton;
+import com.rbelchior.tmbutton.TMButtonView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Views per button, and measure and layout time of a list, for {@link TMButton} and its flat
+ * variant {@link TMButtonView}. See {@link TMButtonBenchmark}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FlatRenderingBenchmark {
+
+    private static final int LIST_ROWS = 50;
+
+    private ActivityController<Activity> activityController;
+    private Activity activity;
+    private FrameLayout content;
+
+    @Before
+    public void setUp() {
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        activity = activityController.get();
+        content = new FrameLayout(activity);
+        activity.setContentView(content);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @After
+    public void tearDown() {
+        activityController.pause().stop().destroy();
+    }
+
+    @Test
+    public void viewCount() throws Exception {
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        View button = inflater.inflate(R.layout.list_item, content, false).findViewById(R.id.tm_button);
+        View flatButton = inflater.inflate(R.layout.list_item_flat, content, false).findViewById(R.id.tm_button);
+
+        HostBenchmark.report("FlatRenderingBenchmark.viewCount.TMButton", countViews(button), "views");
+        HostBenchmark.report("FlatRenderingBenchmark.viewCount.TMButtonView", countViews(flatButton), "views");
+        assertEquals(1, countViews(flatButton));
+    }
+
+    @Test
+    public void measureLayoutList() throws Exception {
+        measureLayoutList("TMButton", R.layout.list_item);
+    }
+
+    @Test
+    public void measureLayoutFlatList() throws Exception {
+        measureLayoutList("TMButtonView", R.layout.list_item_flat);
+    }
+
+    private void measureLayoutList(String variant, int layoutResId) throws Exception {
+        LinearLayout list = new LinearLayout(activity);
+        list.setOrientation(LinearLayout.VERTICAL);
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        for (int i = 0; i < LIST_ROWS; i++) {
+            View row = inflater.inflate(layoutResId, list, false);
+            ((Checkable) row.findViewById(R.id.tm_button)).setChecked(i % 3 == 0);
+            list.addView(row);
+        }
+        content.addView(list);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        HostBenchmark.measure("FlatRenderingBenchmark.measureLayoutList" + LIST_ROWS + "." + variant, iteration -> {
+            TMButtonBenchmark.forceLayout(list);
+            list.measure(widthSpec, heightSpec);
+            list.layout(0, 0, list.getMeasuredWidth(), list.getMeasuredHeight());
+        });
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                count += countViews(group.getChildAt(i));
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,126 @@
+package com.rbelchior.tmbutton.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * <p>
+ * Minimal harness in the style of JMH for benchmarks running on the host JVM: each operation is
+ * run for a number of warmup iterations, then timed over the measured iterations.
+ * </p>
+ * <p>
+ * Reports the median and minimum time per operation, and the average bytes allocated per
+ * operation by the benchmark thread. Results are printed and appended as CSV to the file of the
+ * <code>tmbutton.benchmark.output</code> system property, if set.
+ * </p>
+ * <p>Absolute numbers include the overhead of Robolectric; compare them between revisions.</p>
+ */
+final class HostBenchmark {
+
+    static final int WARMUP_ITERATIONS = Integer.getInteger("tmbutton.benchmark.warmup", 20);
+    static final int MEASURED_ITERATIONS = Integer.getInteger("tmbutton.benchmark.iterations", 100);
+
+    interface Operation {
+        /**
+         * @param iteration index of the iteration, warmup included
+         */
+        void run(int iteration) throws Exception;
+    }
+
+    private HostBenchmark() {
+    }
+
+    /**
+     * Run the operation and report its time and allocation per operation.
+     *
+     * @param name name of the benchmark, e.g. <code>TMButtonBenchmark.construct</code>
+     */
+    static void measure(String name, Operation operation) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run(i);
+        }
+
+        long[] times = new long[MEASURED_ITERATIONS];
+        long allocatedBefore = getAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            operation.run(WARMUP_ITERATIONS + i);
+            times[i] = System.nanoTime() - start;
+        }
+        long allocatedAfter = getAllocatedBytes();
+
+        Arrays.sort(times);
+        long medianNanos = times[times.length / 2];
+        long minNanos = times[0];
+        long bytesPerOp = allocatedBefore < 0 ? -1 : (allocatedAfter - allocatedBefore) / MEASURED_ITERATIONS;
+        report(name, medianNanos, minNanos, bytesPerOp);
+    }
+
+    /**
+     * Report a value measured outside of {@link #measure(String, Operation)}, e.g. a retained heap.
+     */
+    static void report(String name, long value, String unit) throws IOException {
+        System.out.printf(Locale.US, "%-56s %14d %s%n", name, value, unit);
+        appendCsv(String.format(Locale.US, "%s,%d,%s", name, value, unit));
+    }
+
+    private static void report(String name, long medianNanos, long minNanos, long bytesPerOp) throws IOException {
+        System.out.printf(Locale.US, "%-56s %12d ns/op (min %d) %12d B/op%n",
+                name, medianNanos, minNanos, bytesPerOp);
+        appendCsv(String.format(Locale.US, "%s,%d,ns/op", name, medianNanos));
+        appendCsv(String.format(Locale.US, "%s,%d,B/op", name, bytesPerOp));
+    }
+
+    private static void appendCsv(String line) throws IOException {
+        String output = System.getProperty("tmbutton.benchmark.output");
+        if (output == null) {
+            return;
+        }
+        File file = new File(output);
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (Writer writer = new FileWriter(file, true)) {
+            writer.write(line);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Return the bytes allocated so far by the current thread, or -1 if the JVM cannot tell.
+     * Looked up by reflection, as the management API is not part of the Android classpath
+     * the tests are compiled against.
+     */
+    private static long getAllocatedBytes() {
+        try {
+            Object threadBean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean")
+                    .invoke(null);
+            Method getThreadAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+            return (long) getThreadAllocatedBytes.invoke(threadBean, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException | ClassCastException | IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Return the heap used after a full collection, to measure retained sizes.
+     */
+    static long getUsedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A single call to gc() is only a hint; keep the lowest reading
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
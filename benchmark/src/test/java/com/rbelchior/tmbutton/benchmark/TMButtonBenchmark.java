@@ -0,0 +1,140 @@
+package com.rbelchior.tmbutton.benchmark;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+
+import com.rbelchior.tmbutton.TMButton;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Time and allocation per operation of the main {@link TMButton} paths, see {@link HostBenchmark}.
+ * Run with <code>./gradlew :benchmark:testDebugUnitTest</code>; results are written to
+ * <code>benchmark/build/outputs/benchmark/results.csv</code>.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TMButtonBenchmark {
+
+    private static final int LIST_ROWS = 50;
+
+    private ActivityController<Activity> activityController;
+    private Activity activity;
+    private FrameLayout content;
+
+    @Before
+    public void setUp() {
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        activity = activityController.get();
+        content = new FrameLayout(activity);
+        activity.setContentView(content);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @After
+    public void tearDown() {
+        activityController.pause().stop().destroy();
+    }
+
+    @Test
+    public void construct() throws Exception {
+        HostBenchmark.measure("TMButtonBenchmark.construct", iteration -> new TMButton(activity));
+    }
+
+    @Test
+    public void inflateListItem() throws Exception {
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        HostBenchmark.measure("TMButtonBenchmark.inflateListItem",
+                iteration -> inflater.inflate(R.layout.list_item, content, false));
+    }
+
+    @Test
+    public void setChecked() throws Exception {
+        TMButton button = inflateButton();
+        HostBenchmark.measure("TMButtonBenchmark.setChecked",
+                iteration -> button.setChecked(iteration % 2 == 0));
+    }
+
+    @Test
+    public void setCheckedAnimated() throws Exception {
+        TMButton button = inflateButton();
+        HostBenchmark.measure("TMButtonBenchmark.setCheckedAnimated", iteration -> {
+            // Each change cancels the animation of the previous one
+            button.setChecked(iteration % 2 == 0, true);
+        });
+        shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void touchPress() throws Exception {
+        TMButton button = inflateButton();
+        long now = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 16f, 16f, 0);
+        MotionEvent cancel = MotionEvent.obtain(now, now, MotionEvent.ACTION_CANCEL, 16f, 16f, 0);
+        try {
+            // Cancel instead of up, so no click is posted
+            HostBenchmark.measure("TMButtonBenchmark.touchPress", iteration -> {
+                button.onTouchEvent(down);
+                button.onTouchEvent(cancel);
+            });
+        } finally {
+            down.recycle();
+            cancel.recycle();
+        }
+    }
+
+    @Test
+    public void measureLayoutList() throws Exception {
+        LinearLayout list = new LinearLayout(activity);
+        list.setOrientation(LinearLayout.VERTICAL);
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        for (int i = 0; i < LIST_ROWS; i++) {
+            View row = inflater.inflate(R.layout.list_item, list, false);
+            ((TMButton) row.findViewById(R.id.tm_button)).bind(i % 3 == 0);
+            list.addView(row);
+        }
+        content.addView(list);
+
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        HostBenchmark.measure("TMButtonBenchmark.measureLayoutList" + LIST_ROWS, iteration -> {
+            // Measures are cached by spec, as after a scroll every row is laid out again
+            forceLayout(list);
+            list.measure(widthSpec, heightSpec);
+            list.layout(0, 0, list.getMeasuredWidth(), list.getMeasuredHeight());
+        });
+    }
+
+    private TMButton inflateButton() {
+        View row = LayoutInflater.from(activity).inflate(R.layout.list_item, content, false);
+        content.addView(row);
+        shadowOf(Looper.getMainLooper()).idle();
+        return row.findViewById(R.id.tm_button);
+    }
+
+    static void forceLayout(View view) {
+        view.forceLayout();
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                forceLayout(group.getChildAt(i));
+            }
+        }
+    }
+}
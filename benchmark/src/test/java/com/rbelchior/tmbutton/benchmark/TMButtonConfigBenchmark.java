@@ -0,0 +1,82 @@
+package com.rbelchior.tmbutton.benchmark;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.widget.FrameLayout;
+
+import com.rbelchior.tmbutton.TMButtonConfig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Inflation time of a list row with and without the {@link TMButtonConfig} cache, and when rows
+ * of two themes alternate, as configs are only reused with the theme they were resolved with.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TMButtonConfigBenchmark {
+
+    private ActivityController<Activity> activityController;
+    private Activity activity;
+    private FrameLayout content;
+
+    @Before
+    public void setUp() {
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        activity = activityController.get();
+        content = new FrameLayout(activity);
+        activity.setContentView(content);
+        shadowOf(Looper.getMainLooper()).idle();
+        TMButtonConfig.clearCache();
+    }
+
+    @After
+    public void tearDown() {
+        activityController.pause().stop().destroy();
+        TMButtonConfig.clearCache();
+    }
+
+    @Test
+    public void inflateCached() throws Exception {
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        HostBenchmark.measure("TMButtonConfigBenchmark.inflateCached",
+                iteration -> inflater.inflate(R.layout.list_item, content, false));
+    }
+
+    @Test
+    public void inflateUncached() throws Exception {
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        HostBenchmark.measure("TMButtonConfigBenchmark.inflateUncached", iteration -> {
+            TMButtonConfig.clearCache();
+            inflater.inflate(R.layout.list_item, content, false);
+        });
+    }
+
+    @Test
+    public void inflateSingleTheme() throws Exception {
+        LayoutInflater inflater = LayoutInflater.from(
+                new ContextThemeWrapper(activity, android.R.style.Theme_Material_Light));
+        HostBenchmark.measure("TMButtonConfigBenchmark.inflateSingleTheme",
+                iteration -> inflater.inflate(R.layout.list_item, content, false));
+    }
+
+    @Test
+    public void inflateAlternatingThemes() throws Exception {
+        // Each row evicts the config of the other theme, as they share a key
+        LayoutInflater[] inflaters = {
+                LayoutInflater.from(new ContextThemeWrapper(activity, android.R.style.Theme_Material_Light)),
+                LayoutInflater.from(new ContextThemeWrapper(activity, android.R.style.Theme_Material)),
+        };
+        HostBenchmark.measure("TMButtonConfigBenchmark.inflateAlternatingThemes",
+                iteration -> inflaters[iteration % 2].inflate(R.layout.list_item, content, false));
+    }
+}
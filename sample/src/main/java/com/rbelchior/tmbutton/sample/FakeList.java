@@ -34,10 +34,17 @@ public class FakeList {
         public View getView(int position, View convertView, @NonNull ViewGroup parent) {
             if (convertView == null) {
                 convertView = LayoutInflater.from(getContext()).inflate(R.layout.list_item, parent, false);
+                TMButton tmButton = convertView.findViewById(R.id.tm_button);
+                tmButton.setOnCheckedChangeListener((buttonView, isChecked) ->
+                        ((Item) buttonView.getTag()).checked = isChecked);
             }
+            Item item = getItem(position);
             TMButton tmButton = convertView.findViewById(R.id.tm_button);
             TextView text = convertView.findViewById(R.id.text);
 
+            tmButton.setTag(item);
+            tmButton.bind(item.checked);
+
             TooltipCompat.setTooltipText(tmButton, "TM BUTTON");
             TooltipCompat.setTooltipText(text, "TEXT");
 
@@ -46,6 +53,7 @@ public class FakeList {
     }
 
     static class Item {
+        boolean checked;
     }
 
     private static List<Item> create() {
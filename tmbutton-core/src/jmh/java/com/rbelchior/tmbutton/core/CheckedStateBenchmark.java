@@ -0,0 +1,59 @@
+package com.rbelchior.tmbutton.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the state transitions of a toggle, with and without a debounced listener.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckedStateBenchmark {
+
+    private final CheckedState state = new CheckedState();
+
+    /**
+     * Same transitions as <code>TMButton.setChecked</code> notifying its listener at once.
+     */
+    @Benchmark
+    public boolean toggle() {
+        boolean checked = !state.isChecked();
+        if (state.needsChange(checked, false)) {
+            state.setChecked(checked);
+            if (state.beginBroadcast()) {
+                state.endBroadcast();
+            }
+        }
+        return state.isChecked();
+    }
+
+    /**
+     * Toggle then settle once the quiet period is over, as with a debounced listener.
+     */
+    @Benchmark
+    public boolean toggleAndSettle() {
+        boolean checked = !state.isChecked();
+        if (state.needsChange(checked, false)) {
+            state.setChecked(checked);
+            if (state.beginBroadcast()) {
+                state.setChangePending(true);
+                state.endBroadcast();
+            }
+        }
+        state.setChangePending(false);
+        return state.settle();
+    }
+}
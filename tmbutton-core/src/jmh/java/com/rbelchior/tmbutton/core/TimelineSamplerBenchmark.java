@@ -0,0 +1,57 @@
+package com.rbelchior.tmbutton.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating every frame of the color and shadow animations of a button.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimelineSamplerBenchmark {
+
+    private static final long FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    /**
+     * Duration of the run, the color animation lasts 300ms and the shadow 500ms.
+     */
+    @Param({"300", "500"})
+    public long durationMs;
+
+    private final Timeline color = new Timeline(Interpolation.ACCELERATE_DECELERATE, 0f, 0f, 1f);
+    private final Timeline shadow = new Timeline(Interpolation.DECELERATE, 2.0f, 1f, 1.4f);
+    private final float[] frames = new float[64];
+    private long durationNanos;
+
+    @Setup
+    public void setUp() {
+        durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMs);
+    }
+
+    @Benchmark
+    public float sampleAccelerateDecelerate() {
+        int count = TimelineSampler.sample(color, durationNanos, FRAME_INTERVAL_NANOS, frames);
+        return frames[count - 1];
+    }
+
+    @Benchmark
+    public float sampleDecelerate() {
+        int count = TimelineSampler.sample(shadow, durationNanos, FRAME_INTERVAL_NANOS, frames);
+        return frames[count - 1];
+    }
+}
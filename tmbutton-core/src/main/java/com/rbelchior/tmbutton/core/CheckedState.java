@@ -0,0 +1,91 @@
+package com.rbelchior.tmbutton.core;
+
+/**
+ * <p>
+ * Checked state of a button, packed in the bits of a single int: the current state, the guard
+ * against recursive broadcasts, and the state last delivered to a debounced listener.
+ * </p>
+ * <p>Holds no platform type, so its transitions run on any JVM. Not thread-safe.</p>
+ */
+public final class CheckedState {
+
+    private static final int FLAG_CHECKED = 1;
+    private static final int FLAG_BROADCASTING = 1 << 1;
+    private static final int FLAG_SETTLED_CHECKED = 1 << 2;
+    private static final int FLAG_CHANGE_PENDING = 1 << 3;
+
+    private int flags;
+
+    public boolean isChecked() {
+        return (flags & FLAG_CHECKED) != 0;
+    }
+
+    /**
+     * Return true if a change to the given state has to be applied.
+     *
+     * @param forceUpdate if true, a change to the current state is applied again
+     */
+    public boolean needsChange(boolean checked, boolean forceUpdate) {
+        return forceUpdate || isChecked() != checked;
+    }
+
+    public void setChecked(boolean checked) {
+        flags = set(flags, FLAG_CHECKED, checked);
+    }
+
+    /**
+     * Enter a broadcast of the current state, unless one is already running, e.g. when the state
+     * is changed from a listener.
+     *
+     * @return false if a broadcast is running, which must not be entered again
+     */
+    public boolean beginBroadcast() {
+        if ((flags & FLAG_BROADCASTING) != 0) {
+            return false;
+        }
+        flags |= FLAG_BROADCASTING;
+        return true;
+    }
+
+    public void endBroadcast() {
+        flags &= ~FLAG_BROADCASTING;
+    }
+
+    public boolean isBroadcasting() {
+        return (flags & FLAG_BROADCASTING) != 0;
+    }
+
+    /**
+     * Set the state known to the debounced listener, without delivering it.
+     */
+    public void setSettledChecked(boolean checked) {
+        flags = set(flags, FLAG_SETTLED_CHECKED, checked);
+    }
+
+    public boolean isChangePending() {
+        return (flags & FLAG_CHANGE_PENDING) != 0;
+    }
+
+    public void setChangePending(boolean pending) {
+        flags = set(flags, FLAG_CHANGE_PENDING, pending);
+    }
+
+    /**
+     * Settle the current state once the quiet period of the debounced listener is over.
+     *
+     * @return true if the settled state changed and has to be delivered. Nothing is delivered
+     * when the state ends where it started, or during a broadcast.
+     */
+    public boolean settle() {
+        boolean checked = isChecked();
+        if (((flags & FLAG_SETTLED_CHECKED) != 0) == checked || isBroadcasting()) {
+            return false;
+        }
+        setSettledChecked(checked);
+        return true;
+    }
+
+    private static int set(int flags, int flag, boolean value) {
+        return value ? flags | flag : flags & ~flag;
+    }
+}
@@ -0,0 +1,49 @@
+package com.rbelchior.tmbutton.core;
+
+/**
+ * <p>
+ * Easing curves of the button animations, identified by int constants so a frame evaluates them
+ * without any object.
+ * </p>
+ * <p>Curves give the same values as their <code>android.view.animation</code> counterparts.</p>
+ */
+public final class Interpolation {
+
+    public static final int LINEAR = 0;
+    /**
+     * Same as <code>AccelerateDecelerateInterpolator</code>, the default of <code>ValueAnimator</code>.
+     */
+    public static final int ACCELERATE_DECELERATE = 1;
+    /**
+     * Same as <code>DecelerateInterpolator</code>, with its factor.
+     */
+    public static final int DECELERATE = 2;
+
+    private Interpolation() {
+    }
+
+    /**
+     * Apply a curve to a linear fraction.
+     *
+     * @param curve  one of {@link #LINEAR}, {@link #ACCELERATE_DECELERATE} or {@link #DECELERATE}
+     * @param factor factor of the curve, ignored by curves without one
+     * @param input  linear fraction, from 0 to 1
+     */
+    public static float interpolate(int curve, float factor, float input) {
+        switch (curve) {
+            case ACCELERATE_DECELERATE:
+                return (float) (Math.cos((input + 1) * Math.PI) / 2.0f) + 0.5f;
+            case DECELERATE:
+                if (factor == 1.0f) {
+                    return 1.0f - (1.0f - input) * (1.0f - input);
+                }
+                return (float) (1.0f - Math.pow((1.0f - input), 2 * factor));
+            default:
+                return input;
+        }
+    }
+
+    public static float lerp(float from, float to, float fraction) {
+        return from + (to - from) * fraction;
+    }
+}
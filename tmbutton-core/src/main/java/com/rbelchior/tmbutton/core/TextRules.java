@@ -0,0 +1,38 @@
+package com.rbelchior.tmbutton.core;
+
+/**
+ * Fallback rules of the checked and unchecked texts of a button: when only one of them is
+ * provided, it is used for both states.
+ * <p>
+ * Every text may be null, which is the same as empty.
+ */
+public final class TextRules {
+
+    private TextRules() {
+    }
+
+    public static boolean isEmpty(CharSequence text) {
+        return text == null || text.length() == 0;
+    }
+
+    /**
+     * Return true if at least one of the texts is not empty, otherwise no label is shown.
+     */
+    public static boolean hasText(CharSequence textChecked, CharSequence textUnchecked) {
+        return !isEmpty(textChecked) || !isEmpty(textUnchecked);
+    }
+
+    /**
+     * Return the text shown when checked, falling back to the unchecked text.
+     */
+    public static String checkedText(String textChecked, String textUnchecked) {
+        return isEmpty(textChecked) ? textUnchecked : textChecked;
+    }
+
+    /**
+     * Return the text shown when unchecked, falling back to the checked text.
+     */
+    public static String uncheckedText(String textChecked, String textUnchecked) {
+        return isEmpty(textUnchecked) ? textChecked : textUnchecked;
+    }
+}
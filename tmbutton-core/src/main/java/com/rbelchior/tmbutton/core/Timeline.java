@@ -0,0 +1,44 @@
+package com.rbelchior.tmbutton.core;
+
+/**
+ * A value animated between two bounds along an {@link Interpolation} curve. The bounds can be
+ * changed between runs, e.g. to reverse from the value shown.
+ */
+public final class Timeline {
+
+    private final int curve;
+    private final float factor;
+    private float from;
+    private float to;
+
+    /**
+     * @param curve  one of the {@link Interpolation} curves
+     * @param factor factor of the curve, ignored by curves without one
+     */
+    public Timeline(int curve, float factor, float from, float to) {
+        this.curve = curve;
+        this.factor = factor;
+        this.from = from;
+        this.to = to;
+    }
+
+    public void setRange(float from, float to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public float getFrom() {
+        return from;
+    }
+
+    public float getTo() {
+        return to;
+    }
+
+    /**
+     * Return the value at the given linear fraction of the run, from 0 to 1.
+     */
+    public float valueAt(float fraction) {
+        return Interpolation.lerp(from, to, Interpolation.interpolate(curve, factor, fraction));
+    }
+}
@@ -0,0 +1,52 @@
+package com.rbelchior.tmbutton.core;
+
+/**
+ * Maps frame times to the fractions of {@link Timeline} runs.
+ */
+public final class TimelineSampler {
+
+    private TimelineSampler() {
+    }
+
+    /**
+     * Return the linear fraction of a run, clamped between 0 and 1. A run without duration is
+     * complete right away.
+     */
+    public static float fraction(long elapsedNanos, long durationNanos) {
+        if (durationNanos <= 0 || elapsedNanos >= durationNanos) {
+            return 1f;
+        }
+        if (elapsedNanos <= 0) {
+            return 0f;
+        }
+        return elapsedNanos / (float) durationNanos;
+    }
+
+    /**
+     * Return the duration of a run covering only part of a timeline from 0 to 1, e.g. a reversal
+     * midway, so it keeps the speed of a full run.
+     */
+    public static long partialDuration(long fullDuration, float from, float to) {
+        return Math.round(fullDuration * (double) Math.abs(to - from));
+    }
+
+    /**
+     * Sample a run of the timeline at each frame, as drawn at the given frame interval.
+     *
+     * @param out values of the frames, the first at the start of the run
+     * @return number of values written, at most the length of <code>out</code>
+     */
+    public static int sample(Timeline timeline, long durationNanos, long frameIntervalNanos, float[] out) {
+        int count = 0;
+        long elapsed = 0;
+        while (count < out.length) {
+            float fraction = fraction(elapsed, durationNanos);
+            out[count++] = timeline.valueAt(fraction);
+            if (fraction >= 1f) {
+                break;
+            }
+            elapsed += frameIntervalNanos;
+        }
+        return count;
+    }
+}
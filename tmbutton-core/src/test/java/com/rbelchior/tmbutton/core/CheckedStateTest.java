@@ -0,0 +1,102 @@
+package com.rbelchior.tmbutton.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CheckedStateTest {
+
+    private final CheckedState state = new CheckedState();
+
+    @Test
+    public void needsChange_onlyForOtherStateUnlessForced() {
+        assertFalse(state.needsChange(false, false));
+        assertTrue(state.needsChange(true, false));
+        assertTrue(state.needsChange(false, true));
+
+        state.setChecked(true);
+
+        assertTrue(state.isChecked());
+        assertFalse(state.needsChange(true, false));
+        assertTrue(state.needsChange(false, false));
+    }
+
+    @Test
+    public void beginBroadcast_isNotReentrant() {
+        assertTrue(state.beginBroadcast());
+        assertTrue(state.isBroadcasting());
+        assertFalse(state.beginBroadcast());
+
+        state.endBroadcast();
+
+        assertFalse(state.isBroadcasting());
+        assertTrue(state.beginBroadcast());
+    }
+
+    @Test
+    public void settle_deliversChange() {
+        state.setChecked(true);
+
+        assertTrue(state.settle());
+        assertFalse("Already delivered", state.settle());
+    }
+
+    @Test
+    public void settle_skipsToggleBackWithinQuietPeriod() {
+        state.setChecked(true);
+        state.setChecked(false);
+
+        assertFalse(state.settle());
+    }
+
+    @Test
+    public void settle_deliversLastOfManyToggles() {
+        for (int i = 0; i < 5; i++) {
+            state.setChecked(!state.isChecked());
+        }
+
+        assertTrue(state.settle());
+        assertTrue(state.isChecked());
+
+        state.setChecked(false);
+        state.setChecked(true);
+        assertFalse("Ends where the last delivery left it", state.settle());
+    }
+
+    @Test
+    public void settle_waitsForBroadcastToEnd() {
+        state.setChecked(true);
+        state.beginBroadcast();
+
+        assertFalse(state.settle());
+
+        state.endBroadcast();
+        assertTrue(state.settle());
+    }
+
+    @Test
+    public void setSettledChecked_skipsBoundState() {
+        // A row bound to a checked item delivers nothing
+        state.setSettledChecked(true);
+        state.setChecked(true);
+
+        assertFalse(state.settle());
+
+        state.setChecked(false);
+        assertTrue(state.settle());
+    }
+
+    @Test
+    public void changePending_isIndependentFromState() {
+        state.setChangePending(true);
+        assertTrue(state.isChangePending());
+        assertFalse(state.isChecked());
+
+        state.setChecked(true);
+        state.setChangePending(false);
+
+        assertFalse(state.isChangePending());
+        assertTrue(state.isChecked());
+    }
+}
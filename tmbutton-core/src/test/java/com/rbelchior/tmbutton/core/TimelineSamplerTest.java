@@ -0,0 +1,58 @@
+package com.rbelchior.tmbutton.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimelineSamplerTest {
+
+    @Test
+    public void fraction_clampsToRun() {
+        assertEquals(0f, TimelineSampler.fraction(-5, 100), 0f);
+        assertEquals(0f, TimelineSampler.fraction(0, 100), 0f);
+        assertEquals(0.25f, TimelineSampler.fraction(25, 100), 0f);
+        assertEquals(1f, TimelineSampler.fraction(100, 100), 0f);
+        assertEquals(1f, TimelineSampler.fraction(150, 100), 0f);
+        assertEquals("Zero duration", 1f, TimelineSampler.fraction(0, 0), 0f);
+    }
+
+    @Test
+    public void partialDuration_keepsSpeedOfFullRun() {
+        assertEquals(300, TimelineSampler.partialDuration(300, 0f, 1f));
+        assertEquals(120, TimelineSampler.partialDuration(300, 0.4f, 0f));
+        assertEquals(0, TimelineSampler.partialDuration(300, 1f, 1f));
+    }
+
+    @Test
+    public void sample_writesOneValuePerFrameUntilTheEnd() {
+        Timeline timeline = new Timeline(Interpolation.LINEAR, 0f, 10f, 20f);
+        float[] out = new float[16];
+
+        int count = TimelineSampler.sample(timeline, 100, 25, out);
+
+        assertEquals(5, count);
+        assertEquals(10f, out[0], 0f);
+        assertEquals(12.5f, out[1], 0f);
+        assertEquals(20f, out[4], 0f);
+    }
+
+    @Test
+    public void sample_stopsAtTheEndOfTheArray() {
+        Timeline timeline = new Timeline(Interpolation.LINEAR, 0f, 0f, 1f);
+        float[] out = new float[3];
+
+        assertEquals(3, TimelineSampler.sample(timeline, 100, 10, out));
+        assertEquals(0.2f, out[2], 1e-6f);
+    }
+
+    @Test
+    public void timeline_reversesFromNewRange() {
+        Timeline timeline = new Timeline(Interpolation.DECELERATE, 2f, 0f, 1f);
+        timeline.setRange(0.6f, 0f);
+
+        assertEquals(0.6f, timeline.valueAt(0f), 0f);
+        assertEquals(0f, timeline.valueAt(1f), 0f);
+        assertEquals(0.6f, timeline.getFrom(), 0f);
+        assertEquals(0f, timeline.getTo(), 0f);
+    }
+}
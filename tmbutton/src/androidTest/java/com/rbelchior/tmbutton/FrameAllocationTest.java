@@ -0,0 +1,112 @@
+package com.rbelchior.tmbutton;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Debug;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that the frames of the check and uncheck animations allocate nothing, once the shadow
+ * view and the color filters exist.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FrameAllocationTest {
+
+    private static final long FRAME_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    private ActivityScenario<TestActivity> scenario;
+    private TMButton button;
+
+    @Before
+    public void setUp() {
+        scenario = ActivityScenario.launch(TestActivity.class);
+        scenario.onActivity(activity -> {
+            FrameLayout content = new FrameLayout(activity);
+            button = new TMButton(activity);
+            button.setIconDrawable(new ColorDrawable(Color.BLACK));
+            button.setText("Checked", "Unchecked");
+            content.addView(button, new FrameLayout.LayoutParams(
+                    ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            activity.setContentView(content);
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+    }
+
+    @After
+    public void tearDown() {
+        scenario.close();
+    }
+
+    @Test
+    public void animationFrames_doNotAllocate() {
+        boolean[] animatorsEnabled = new boolean[1];
+        int[] results = new int[4];
+        // Assertions are made on the test thread, failures on the main thread would crash it
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            animatorsEnabled[0] = TMButtonAnimationGovernor.areAnimatorsEnabled(button);
+            if (!animatorsEnabled[0]) {
+                return;
+            }
+            TMButtonAnimationClock clock = TMButtonAnimationClock.get();
+            long frameTimeNanos = System.nanoTime();
+
+            // First cycle creates the shadow view, the filters and the pooled slots
+            button.setChecked(true, true);
+            frameTimeNanos = runFrames(clock, frameTimeNanos);
+            button.setChecked(false, true);
+            frameTimeNanos = runFrames(clock, frameTimeNanos);
+
+            button.setChecked(true, true);
+            results[0] = clock.getRunningCount();
+            results[1] = countFrameAllocations(clock, frameTimeNanos);
+
+            button.setChecked(false, true);
+            results[2] = clock.getRunningCount();
+            results[3] = countFrameAllocations(clock, frameTimeNanos);
+        });
+
+        assumeTrue("Animations are disabled", animatorsEnabled[0]);
+        assertEquals("Running animations when checked", 2, results[0]);
+        assertEquals("Allocations of the check frames", 0, results[1]);
+        assertEquals("Running animations when unchecked", 1, results[2]);
+        assertEquals("Allocations of the uncheck frames", 0, results[3]);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int countFrameAllocations(TMButtonAnimationClock clock, long frameTimeNanos) {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            runFrames(clock, frameTimeNanos);
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        return Debug.getThreadAllocCount();
+    }
+
+    /**
+     * Run frames of the clock until every animation ended, and return the time of the next frame.
+     */
+    private static long runFrames(TMButtonAnimationClock clock, long frameTimeNanos) {
+        while (clock.getRunningCount() > 0) {
+            clock.doFrame(frameTimeNanos);
+            frameTimeNanos += FRAME_INTERVAL_NANOS;
+        }
+        return frameTimeNanos;
+    }
+}
@@ -0,0 +1,9 @@
+package com.rbelchior.tmbutton;
+
+import android.app.Activity;
+
+/**
+ * Empty activity hosting the views under test.
+ */
+public class TestActivity extends Activity {
+}
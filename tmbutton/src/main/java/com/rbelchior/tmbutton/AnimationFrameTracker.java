@@ -0,0 +1,97 @@
+package com.rbelchior.tmbutton;
+
+import android.view.Choreographer;
+import android.view.Display;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the frames of one {@link TMButton} animation, fed by the {@link Choreographer} frames of
+ * {@link TMButtonAnimationClock}, and reports them to {@link TMButtonMetrics} when the animation
+ * stops. Created by the button only while metrics are registered.
+ */
+final class AnimationFrameTracker {
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private final TMButton button;
+
+    private boolean running;
+    private int animation;
+    private long touchUptimeNanos;
+    private long frameIntervalNanos;
+
+    private int frameCount;
+    private long firstFrameNanos;
+    private long lastFrameNanos;
+    private long worstFrameNanos;
+    private int droppedFrames;
+
+    AnimationFrameTracker(@NonNull TMButton button) {
+        this.button = button;
+    }
+
+    /**
+     * Start tracking a new animation, reporting the previous one if still running.
+     *
+     * @param animation      one of the {@link TMButtonMetrics} animations
+     * @param touchUptimeMs  event time of the touch starting the animation, or 0
+     */
+    void start(int animation, long touchUptimeMs) {
+        stop();
+
+        Display display = button.getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : DEFAULT_REFRESH_RATE;
+        if (refreshRate <= 0) {
+            refreshRate = DEFAULT_REFRESH_RATE;
+        }
+
+        this.running = true;
+        this.animation = animation;
+        this.touchUptimeNanos = TimeUnit.MILLISECONDS.toNanos(touchUptimeMs);
+        this.frameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+        this.frameCount = 0;
+        this.worstFrameNanos = 0;
+        this.droppedFrames = 0;
+    }
+
+    /**
+     * Stop tracking and report the frames seen so far.
+     */
+    void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        TMButtonMetrics metrics = TMButton.getMetrics();
+        if (metrics == null || frameCount == 0) {
+            return;
+        }
+        // Frame times and uptime share the same monotonic clock
+        long startLatencyNanos = touchUptimeNanos > 0 ? firstFrameNanos - touchUptimeNanos : -1;
+        metrics.onAnimationFinished(button, animation, startLatencyNanos, frameCount,
+                worstFrameNanos, droppedFrames);
+    }
+
+    /**
+     * Count a frame of the tracked animation. The button runs several animations at once, so a
+     * frame may be reported more than once.
+     */
+    void onFrame(long frameTimeNanos) {
+        if (!running || (frameCount > 0 && frameTimeNanos == lastFrameNanos)) {
+            return;
+        }
+        if (frameCount == 0) {
+            firstFrameNanos = frameTimeNanos;
+        } else {
+            long frameNanos = frameTimeNanos - lastFrameNanos;
+            worstFrameNanos = Math.max(worstFrameNanos, frameNanos);
+            droppedFrames += Math.max(0, Math.round(frameNanos / (double) frameIntervalNanos) - 1);
+        }
+        lastFrameNanos = frameTimeNanos;
+        frameCount++;
+    }
+}
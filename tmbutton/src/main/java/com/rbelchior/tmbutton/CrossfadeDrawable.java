@@ -0,0 +1,119 @@
+package com.rbelchior.tmbutton;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>
+ * Icon of a {@link TMButton} with an unchecked drawable: both drawables are drawn on top of each
+ * other, crossfaded by the same fraction as the icon color, instead of being swapped at once.
+ * </p>
+ * <p>
+ * The alpha of each drawable is applied with a layer while crossfading, instead of being set on
+ * the drawables, so they keep sharing their state with the icons of other buttons.
+ * </p>
+ */
+final class CrossfadeDrawable extends Drawable implements Drawable.Callback {
+
+    private final Drawable uncheckedDrawable;
+    private final Drawable checkedDrawable;
+
+    /**
+     * From 0 (unchecked drawable only) to 1 (checked drawable only).
+     */
+    private float fraction;
+    private int alpha = 255;
+
+    CrossfadeDrawable(@NonNull Drawable uncheckedDrawable, @NonNull Drawable checkedDrawable) {
+        this.uncheckedDrawable = DrawableCache.prepareForColorFilter(uncheckedDrawable);
+        this.checkedDrawable = DrawableCache.prepareForColorFilter(checkedDrawable);
+        this.uncheckedDrawable.setCallback(this);
+        this.checkedDrawable.setCallback(this);
+    }
+
+    void setFraction(float fraction) {
+        if (this.fraction != fraction) {
+            this.fraction = fraction;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        DrawableCache.drawWithAlpha(canvas, uncheckedDrawable, Math.round(alpha * (1f - fraction)));
+        DrawableCache.drawWithAlpha(canvas, checkedDrawable, Math.round(alpha * fraction));
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        uncheckedDrawable.setBounds(bounds);
+        checkedDrawable.setBounds(bounds);
+    }
+
+    @Override
+    protected boolean onStateChange(int[] state) {
+        boolean changed = uncheckedDrawable.setState(state);
+        changed |= checkedDrawable.setState(state);
+        return changed;
+    }
+
+    @Override
+    protected boolean onLevelChange(int level) {
+        boolean changed = uncheckedDrawable.setLevel(level);
+        changed |= checkedDrawable.setLevel(level);
+        return changed;
+    }
+
+    @Override
+    public boolean isStateful() {
+        return uncheckedDrawable.isStateful() || checkedDrawable.isStateful();
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return Math.max(uncheckedDrawable.getIntrinsicWidth(), checkedDrawable.getIntrinsicWidth());
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return Math.max(uncheckedDrawable.getIntrinsicHeight(), checkedDrawable.getIntrinsicHeight());
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        this.alpha = alpha;
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        uncheckedDrawable.setColorFilter(colorFilter);
+        checkedDrawable.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable who) {
+        invalidateSelf();
+    }
+
+    @Override
+    public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+        scheduleSelf(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+        unscheduleSelf(what);
+    }
+}
@@ -0,0 +1,149 @@
+package com.rbelchior.tmbutton;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.VectorDrawable;
+import android.os.Build;
+import android.util.LruCache;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.content.res.AppCompatResources;
+import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * <p>
+ * Process-wide cache of icon {@link Drawable.ConstantState}s, by resource.
+ * </p>
+ * <p>
+ * Each resource is loaded once per theme; every {@link TMButton} then gets its own drawable
+ * instance sharing that state, so buttons do not duplicate the icon in memory nor share a
+ * drawable, whose callback and color filter can only belong to one view. Color filters are set
+ * on the drawables directly, see {@link #prepareForColorFilter(Drawable)}, rather than through
+ * {@link android.widget.ImageView#setColorFilter(android.graphics.ColorFilter)}, which always
+ * mutates the drawable, and alpha is applied with a layer when drawing, see
+ * {@link #drawWithAlpha(Canvas, Drawable, int)}, since vectors keep it in their shared state.
+ * The cache is cleared whenever the resources configuration changes.
+ * </p>
+ */
+final class DrawableCache {
+
+    private static final int MAX_CACHED_STATES = 32;
+
+    private static final LruCache<Integer, Entry> CACHE = new LruCache<>(MAX_CACHED_STATES);
+    private static final Configuration CACHED_CONFIGURATION = new Configuration();
+
+    private DrawableCache() {
+    }
+
+    /**
+     * Return a new drawable of the given resource, sharing its state with the other drawables
+     * returned for the same resource and theme.
+     */
+    @Nullable
+    static Drawable get(@NonNull Context context, @DrawableRes int resId) {
+        Resources.Theme theme = context.getTheme();
+        synchronized (CACHE) {
+            Configuration configuration = context.getResources().getConfiguration();
+            if (CACHED_CONFIGURATION.diff(configuration) != 0) {
+                CACHE.evictAll();
+                CACHED_CONFIGURATION.setTo(configuration);
+            }
+            Entry entry = CACHE.get(resId);
+            if (entry != null && entry.theme.get() == theme) {
+                return newDrawable(context, entry.state);
+            }
+        }
+
+        Drawable drawable = AppCompatResources.getDrawable(context, resId);
+        Drawable.ConstantState state = drawable == null ? null : drawable.getConstantState();
+        if (state != null) {
+            synchronized (CACHE) {
+                CACHE.put(resId, new Entry(state, theme));
+            }
+        }
+        return drawable;
+    }
+
+    /**
+     * Return a new drawable sharing the state of the given one, or null if it cannot be copied.
+     */
+    @Nullable
+    static Drawable copy(@NonNull Context context, @NonNull Drawable drawable) {
+        Drawable.ConstantState state = drawable.getConstantState();
+        return state == null ? null : newDrawable(context, state);
+    }
+
+    /**
+     * Return the drawable to set a per-view color filter on. Vectors keep their filter per
+     * instance and are returned as is, still sharing their state. Other drawables, e.g. bitmaps,
+     * keep it in their state and are mutated first.
+     */
+    @NonNull
+    static Drawable prepareForColorFilter(@NonNull Drawable drawable) {
+        if (drawable instanceof FixedSizeDrawable) {
+            // Prepares its content itself
+            return drawable;
+        }
+        if (drawable instanceof VectorDrawableCompat
+                || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && drawable instanceof VectorDrawable)) {
+            return drawable;
+        }
+        return drawable.mutate();
+    }
+
+    /**
+     * Draw the drawable with the given alpha, through a layer unless opaque, instead of setting
+     * the alpha of the drawable: some drawables, e.g. vectors, keep it in their shared state.
+     */
+    @SuppressWarnings("deprecation")
+    static void drawWithAlpha(@NonNull Canvas canvas, @NonNull Drawable drawable, int alpha) {
+        if (alpha <= 0) {
+            return;
+        }
+        if (alpha >= 255) {
+            drawable.draw(canvas);
+            return;
+        }
+        Rect bounds = drawable.getBounds();
+        int saveCount;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            saveCount = canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, alpha);
+        } else {
+            saveCount = canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, alpha,
+                    Canvas.ALL_SAVE_FLAG);
+        }
+        drawable.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @NonNull
+    static Drawable newDrawable(@NonNull Context context, @NonNull Drawable.ConstantState state) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return state.newDrawable(context.getResources(), context.getTheme());
+        }
+        return state.newDrawable(context.getResources());
+    }
+
+    private static final class Entry {
+
+        final Drawable.ConstantState state;
+
+        /**
+         * Theme the state was loaded with, its attributes may already be resolved.
+         */
+        final WeakReference<Resources.Theme> theme;
+
+        Entry(Drawable.ConstantState state, Resources.Theme theme) {
+            this.state = state;
+            this.theme = new WeakReference<>(theme);
+        }
+    }
+}
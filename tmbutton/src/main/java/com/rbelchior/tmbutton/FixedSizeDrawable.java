@@ -0,0 +1,230 @@
+package com.rbelchior.tmbutton;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>
+ * Slot holding a swappable drawable behind a fixed intrinsic size, used by
+ * {@link TMButton#setIconAsync(TMButtonIconPrefetcher, Object, Drawable)}.
+ * </p>
+ * <p>
+ * Replacing the drawable of an {@link android.widget.ImageView} requests a layout whenever the
+ * intrinsic size changes. Swapping the content of this slot, e.g. a placeholder for the loaded
+ * icon, only invalidates it. The content is fit-centered in the bounds.
+ * </p>
+ * <p>
+ * The content usually shares its state with the icons of other buttons: alpha is applied with a
+ * layer when drawing, rather than set on the content, since vectors keep it in their shared state.
+ * </p>
+ */
+final class FixedSizeDrawable extends Drawable implements Drawable.Callback {
+
+    private final int width;
+    private final int height;
+
+    @Nullable
+    private Drawable drawable;
+    private final Rect drawableBounds = new Rect();
+
+    @Nullable
+    private ColorFilter colorFilter;
+    private int alpha = 255;
+    private boolean mutated;
+
+    FixedSizeDrawable(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Replace the content, without changing the intrinsic size.
+     */
+    void setDrawable(@Nullable Drawable drawable) {
+        if (this.drawable == drawable) {
+            return;
+        }
+        if (this.drawable != null) {
+            this.drawable.setCallback(null);
+        }
+        if (drawable != null) {
+            // The slot only holds icons of a button, colored by a filter
+            drawable = mutated ? drawable.mutate() : DrawableCache.prepareForColorFilter(drawable);
+        }
+        this.drawable = drawable;
+        if (drawable != null) {
+            drawable.setCallback(this);
+            drawable.setState(getState());
+            drawable.setLevel(getLevel());
+            drawable.setColorFilter(colorFilter);
+            updateDrawableBounds(getBounds());
+        }
+        invalidateSelf();
+    }
+
+    @Nullable
+    Drawable getDrawable() {
+        return drawable;
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        if (drawable != null) {
+            DrawableCache.drawWithAlpha(canvas, drawable, alpha);
+        }
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        updateDrawableBounds(bounds);
+    }
+
+    private void updateDrawableBounds(Rect bounds) {
+        if (drawable == null) {
+            return;
+        }
+        int intrinsicWidth = drawable.getIntrinsicWidth();
+        int intrinsicHeight = drawable.getIntrinsicHeight();
+        if (intrinsicWidth <= 0 || intrinsicHeight <= 0) {
+            drawable.setBounds(bounds);
+            return;
+        }
+        float scale = Math.min(bounds.width() / (float) intrinsicWidth, bounds.height() / (float) intrinsicHeight);
+        int drawableWidth = Math.round(intrinsicWidth * scale);
+        int drawableHeight = Math.round(intrinsicHeight * scale);
+        int left = bounds.left + (bounds.width() - drawableWidth) / 2;
+        int top = bounds.top + (bounds.height() - drawableHeight) / 2;
+        drawableBounds.set(left, top, left + drawableWidth, top + drawableHeight);
+        drawable.setBounds(drawableBounds);
+    }
+
+    @Override
+    protected boolean onStateChange(int[] state) {
+        return drawable != null && drawable.setState(state);
+    }
+
+    @Override
+    protected boolean onLevelChange(int level) {
+        return drawable != null && drawable.setLevel(level);
+    }
+
+    @Override
+    public boolean isStateful() {
+        return drawable != null && drawable.isStateful();
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return width;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return height;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (this.alpha != alpha) {
+            this.alpha = alpha;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        this.colorFilter = colorFilter;
+        if (drawable != null) {
+            drawable.setColorFilter(colorFilter);
+        }
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @NonNull
+    @Override
+    public Drawable mutate() {
+        if (!mutated && super.mutate() == this) {
+            if (drawable != null) {
+                drawable.mutate();
+            }
+            mutated = true;
+        }
+        return this;
+    }
+
+    @Nullable
+    @Override
+    public ConstantState getConstantState() {
+        if (drawable == null) {
+            return new State(width, height, null);
+        }
+        ConstantState drawableState = drawable.getConstantState();
+        return drawableState == null ? null : new State(width, height, drawableState);
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable who) {
+        invalidateSelf();
+    }
+
+    @Override
+    public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+        scheduleSelf(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+        unscheduleSelf(what);
+    }
+
+    private static final class State extends ConstantState {
+
+        private final int width;
+        private final int height;
+        @Nullable
+        private final ConstantState drawableState;
+
+        State(int width, int height, @Nullable ConstantState drawableState) {
+            this.width = width;
+            this.height = height;
+            this.drawableState = drawableState;
+        }
+
+        @NonNull
+        @Override
+        public Drawable newDrawable() {
+            return newDrawable(null);
+        }
+
+        @NonNull
+        @Override
+        public Drawable newDrawable(@Nullable Resources res) {
+            FixedSizeDrawable copy = new FixedSizeDrawable(width, height);
+            if (drawableState != null) {
+                copy.setDrawable(drawableState.newDrawable(res));
+            }
+            return copy;
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return drawableState == null ? 0 : drawableState.getChangingConfigurations();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.rbelchior.tmbutton;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.text.TextPaint;
+import android.util.TypedValue;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * Text size and color of the labels drawn on a canvas, see {@link TMButtonView} and
+ * {@link StableLabelView}. Like a {@link android.widget.TextView}, they default to the
+ * <code>textAppearanceSmall</code> of the theme, overridden by the text appearance attribute.
+ */
+final class LabelAppearance {
+
+    private LabelAppearance() {
+    }
+
+    /**
+     * Set the text size of the paint, and return the text color.
+     *
+     * @param textAppearanceResId text appearance of the button, or -1
+     */
+    @ColorInt
+    static int apply(@NonNull Context context, int textAppearanceResId, @NonNull TextPaint paint) {
+        paint.density = context.getResources().getDisplayMetrics().density;
+        paint.setTextSize(14 * context.getResources().getDisplayMetrics().scaledDensity);
+        int textColor = Color.BLACK;
+
+        TypedValue value = new TypedValue();
+        if (context.getTheme().resolveAttribute(android.R.attr.textAppearanceSmall, value, true)
+                && value.resourceId != 0) {
+            textColor = read(context, value.resourceId, paint, textColor);
+        }
+        if (textAppearanceResId != -1) {
+            textColor = read(context, textAppearanceResId, paint, textColor);
+        }
+        return textColor;
+    }
+
+    @ColorInt
+    private static int read(Context context, int textAppearanceResId, TextPaint paint, @ColorInt int textColor) {
+        // Must be sorted in ascending order of attribute id
+        TypedArray appearance = context.obtainStyledAttributes(textAppearanceResId,
+                new int[]{android.R.attr.textSize, android.R.attr.textColor});
+        try {
+            paint.setTextSize(appearance.getDimension(0, paint.getTextSize()));
+            ColorStateList colorStateList = appearance.getColorStateList(1);
+            return colorStateList != null ? colorStateList.getDefaultColor() : textColor;
+        } finally {
+            appearance.recycle();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.rbelchior.tmbutton;
+
+import androidx.annotation.NonNull;
+import androidx.dynamicanimation.animation.DynamicAnimation;
+import androidx.dynamicanimation.animation.FloatPropertyCompat;
+import androidx.dynamicanimation.animation.SpringAnimation;
+import androidx.dynamicanimation.animation.SpringForce;
+
+/**
+ * Spring driving the press feedback of the icon. One spring is created per button and reused by
+ * every touch: moving its final position keeps the current scale and velocity, so rapid taps
+ * never restart the animation from scratch.
+ */
+final class PressSpring {
+
+    static final float SCALE_PRESSED = 0.7f;
+    static final float SCALE_RELEASED = 1f;
+
+    private static final float STIFFNESS = SpringForce.STIFFNESS_MEDIUM;
+    private static final float DAMPING_RATIO = SpringForce.DAMPING_RATIO_LOW_BOUNCY;
+
+    private PressSpring() {
+    }
+
+    @NonNull
+    static <T> SpringAnimation create(@NonNull T target, @NonNull FloatPropertyCompat<T> scaleProperty) {
+        SpringAnimation spring = new SpringAnimation(target, scaleProperty, SCALE_RELEASED);
+        spring.getSpring()
+                .setStiffness(STIFFNESS)
+                .setDampingRatio(DAMPING_RATIO);
+        // Custom properties default to a pixel threshold, far too coarse for a scale
+        spring.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_SCALE);
+        return spring;
+    }
+}
@@ -0,0 +1,256 @@
+package com.rbelchior.tmbutton;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.RecordingCanvas;
+import android.graphics.Rect;
+import android.graphics.RenderNode;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+/**
+ * <p>
+ * Icon of a {@link TMButton} on API 29+, recorded once in the unchecked color and once in the
+ * checked color, each in its own {@link RenderNode}.
+ * </p>
+ * <p>
+ * The color animation then only changes the alpha of the checked node drawn over the unchecked
+ * one: a frame updates a node property instead of recording the icon again with a new color
+ * filter. The icon is only recorded again when its bounds, state or colors change. Software
+ * canvases fall back to drawing the icon with the interpolated filter.
+ * </p>
+ * <p>
+ * Both nodes are always part of the display list of the host view, so a new alpha needs no new
+ * recording of the host either: it is damaged with a property-only invalidation, as for a change
+ * of one of its own properties, and the render thread picks up the alpha of the nodes when it
+ * syncs the frame. The alpha of this drawable is applied to the nodes too, never to the icon,
+ * whose state is shared with other buttons.
+ * </p>
+ * <p>
+ * Setting a color filter invalidates the icon, which would invalidate this drawable again from
+ * {@link #draw(Canvas)}: filters are only set when they change, with the callback of the icon
+ * detached, as is recording.
+ * </p>
+ */
+@RequiresApi(Build.VERSION_CODES.Q)
+final class RenderNodeTintDrawable extends Drawable implements Drawable.Callback {
+
+    private final Drawable icon;
+    private final RenderNode uncheckedNode = new RenderNode("TMButtonIconUnchecked");
+    private final RenderNode checkedNode = new RenderNode("TMButtonIconChecked");
+
+    @Nullable
+    private ColorFilterTable colorFilterTable;
+    /**
+     * Filter last set on the icon.
+     */
+    @Nullable
+    private ColorFilter appliedColorFilter;
+
+    /**
+     * Alpha of the checked node, from 0 (unchecked color) to 1 (checked color).
+     */
+    private float fraction;
+    private int alpha = 255;
+    private boolean recorded;
+    /**
+     * True if the nodes were drawn on the last draw, rather than the icon on a software canvas.
+     */
+    private boolean drawnWithNodes;
+
+    RenderNodeTintDrawable(@NonNull Drawable icon) {
+        this.icon = DrawableCache.prepareForColorFilter(icon);
+        this.icon.setCallback(this);
+        // Unchecked color until the first call to setColor()
+        checkedNode.setAlpha(0f);
+    }
+
+    /**
+     * Show the color at the given fraction of the table.
+     */
+    void setColor(@NonNull ColorFilterTable colorFilterTable, float fraction) {
+        if (this.colorFilterTable != colorFilterTable) {
+            this.colorFilterTable = colorFilterTable;
+            recorded = false;
+        } else if (this.fraction == fraction) {
+            return;
+        }
+        this.fraction = fraction;
+        updateNodeAlpha();
+    }
+
+    /**
+     * Apply {@link #fraction} and {@link #alpha} to the nodes. The unchecked node is hidden once
+     * fully checked, so it never shows through the edges of the checked icon.
+     */
+    private void updateNodeAlpha() {
+        float alpha = this.alpha / 255f;
+        checkedNode.setAlpha(alpha * fraction);
+        uncheckedNode.setAlpha(fraction < 1f ? alpha : 0f);
+        invalidateNodeProperties();
+    }
+
+    /**
+     * Draw the nodes again with their new properties, without recording the host view again when
+     * they are part of its display list. Otherwise, or on a software canvas, invalidate this
+     * drawable as usual.
+     */
+    private void invalidateNodeProperties() {
+        Callback callback = getCallback();
+        if (recorded && drawnWithNodes && callback instanceof View
+                && ((View) callback).isHardwareAccelerated()) {
+            // Like View#invalidateViewProperty(), which is not public
+            ((View) callback).invalidateOutline();
+        } else {
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        drawnWithNodes = false;
+        if (colorFilterTable == null) {
+            DrawableCache.drawWithAlpha(canvas, icon, alpha);
+            return;
+        }
+        if (!canvas.isHardwareAccelerated()) {
+            applyColorFilter(colorFilterTable.get(fraction));
+            DrawableCache.drawWithAlpha(canvas, icon, alpha);
+            return;
+        }
+        if (!recorded) {
+            record(colorFilterTable);
+        }
+        // Both drawn whatever their alpha, a node with an alpha of 0 is skipped when rendering
+        canvas.drawRenderNode(uncheckedNode);
+        canvas.drawRenderNode(checkedNode);
+        drawnWithNodes = true;
+    }
+
+    private void record(@NonNull ColorFilterTable colorFilterTable) {
+        // Changes made while recording are already part of the nodes
+        icon.setCallback(null);
+        try {
+            recordNode(uncheckedNode, colorFilterTable.get(0f));
+            recordNode(checkedNode, colorFilterTable.get(1f));
+        } finally {
+            icon.setCallback(this);
+        }
+        recorded = true;
+    }
+
+    private void recordNode(@NonNull RenderNode node, @NonNull ColorFilter colorFilter) {
+        Rect bounds = getBounds();
+        node.setPosition(bounds);
+        RecordingCanvas canvas = node.beginRecording();
+        try {
+            canvas.translate(-bounds.left, -bounds.top);
+            if (appliedColorFilter != colorFilter) {
+                icon.setColorFilter(colorFilter);
+                appliedColorFilter = colorFilter;
+            }
+            icon.draw(canvas);
+        } finally {
+            node.endRecording();
+        }
+    }
+
+    /**
+     * Set the filter of the icon without invalidating this drawable, when drawing.
+     */
+    private void applyColorFilter(@NonNull ColorFilter colorFilter) {
+        if (appliedColorFilter == colorFilter) {
+            return;
+        }
+        appliedColorFilter = colorFilter;
+        icon.setCallback(null);
+        icon.setColorFilter(colorFilter);
+        icon.setCallback(this);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        icon.setBounds(bounds);
+        recorded = false;
+    }
+
+    @Override
+    protected boolean onStateChange(int[] state) {
+        boolean changed = icon.setState(state);
+        if (changed) {
+            recorded = false;
+        }
+        return changed;
+    }
+
+    @Override
+    protected boolean onLevelChange(int level) {
+        boolean changed = icon.setLevel(level);
+        if (changed) {
+            recorded = false;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean isStateful() {
+        return icon.isStateful();
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return icon.getIntrinsicWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return icon.getIntrinsicHeight();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (this.alpha != alpha) {
+            this.alpha = alpha;
+            updateNodeAlpha();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Ignored, the color is set with {@link #setColor(ColorFilterTable, float)}.
+     */
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable who) {
+        recorded = false;
+        invalidateSelf();
+    }
+
+    @Override
+    public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+        scheduleSelf(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+        unscheduleSelf(what);
+    }
+}
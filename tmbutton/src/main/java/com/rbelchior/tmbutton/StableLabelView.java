@@ -0,0 +1,224 @@
+package com.rbelchior.tmbutton;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextDirectionHeuristics;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.view.View;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>
+ * Label of a {@link TMButton} in stable text mode, see the <code>tmbutton_stable_text</code>
+ * attribute.
+ * </p>
+ * <p>
+ * Both texts are laid out once and the view is measured to fit the larger one, so changing the
+ * checked state never changes its size: it only crossfades the two cached layouts, which
+ * invalidates the label without requesting a layout of its parents. Each text is aligned to the
+ * start of the label in its layout direction.
+ * </p>
+ * <p>
+ * As nothing is set on a {@link android.widget.TextView}, the text shown is exposed to
+ * accessibility services as the content description, updated once the crossfade settles.
+ * </p>
+ */
+@SuppressLint("ViewConstructor")
+final class StableLabelView extends View {
+
+    private final TextPaint textPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+    @ColorInt
+    private int textColor;
+    @ColorInt
+    private int checkedTextColor;
+
+    @Nullable
+    private String textChecked;
+    @Nullable
+    private String textUnchecked;
+
+    /**
+     * Built on the first measure after the texts changed.
+     */
+    @Nullable
+    private StaticLayout checkedLayout;
+    @Nullable
+    private StaticLayout uncheckedLayout;
+    /**
+     * Layout direction the layouts are built for.
+     */
+    private boolean layoutsRtl;
+
+    /**
+     * Visibility of the checked text, from 0 (unchecked text only) to 1 (checked text only).
+     */
+    private float checkedFraction;
+
+    StableLabelView(@NonNull Context context, int textAppearanceResId) {
+        super(context);
+
+        textColor = LabelAppearance.apply(context, textAppearanceResId, textPaint);
+        checkedTextColor = textColor;
+    }
+
+    /**
+     * Set both texts, the only change requesting a new layout.
+     */
+    void setText(@Nullable String textChecked, @Nullable String textUnchecked) {
+        if (TextUtils.equals(this.textChecked, textChecked)
+                && TextUtils.equals(this.textUnchecked, textUnchecked)) {
+            return;
+        }
+        this.textChecked = textChecked;
+        this.textUnchecked = textUnchecked;
+        checkedLayout = null;
+        uncheckedLayout = null;
+        updateContentDescription();
+        requestLayout();
+        invalidate();
+    }
+
+    void setCheckedTextColor(@ColorInt int color) {
+        checkedTextColor = color;
+        invalidate();
+    }
+
+    /**
+     * Set the visibility of the checked text, from 0 (unchecked text only) to 1 (checked text
+     * only). Animated by the button along with its icon color.
+     */
+    void setCheckedFraction(float fraction) {
+        if (checkedFraction != fraction) {
+            checkedFraction = fraction;
+            updateContentDescription();
+            invalidate();
+        }
+    }
+
+    /**
+     * Describe the label with the text shown, only once settled: intermediate frames show both.
+     */
+    private void updateContentDescription() {
+        if (checkedFraction == 0f) {
+            setContentDescription(textUnchecked);
+        } else if (checkedFraction == 1f) {
+            setContentDescription(textChecked);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        ensureLayouts();
+        int textWidth = Math.max(getLayoutWidth(checkedLayout), getLayoutWidth(uncheckedLayout));
+        int textHeight = Math.max(getLayoutHeight(checkedLayout), getLayoutHeight(uncheckedLayout));
+
+        int width = getPaddingLeft() + textWidth + getPaddingRight();
+        int height = getPaddingTop() + textHeight + getPaddingBottom();
+        setMeasuredDimension(
+                resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    private void ensureLayouts() {
+        if (checkedLayout == null && !TextUtils.isEmpty(textChecked)) {
+            checkedLayout = createLayout(textChecked);
+        }
+        if (uncheckedLayout == null && !TextUtils.isEmpty(textUnchecked)) {
+            uncheckedLayout = TextUtils.equals(textChecked, textUnchecked)
+                    ? checkedLayout
+                    : createLayout(textUnchecked);
+        }
+    }
+
+    @NonNull
+    private StaticLayout createLayout(@NonNull String text) {
+        int width = (int) Math.ceil(Layout.getDesiredWidth(text, textPaint));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            // Paragraph direction of the text, as a TextView with the default text direction
+            return StaticLayout.Builder.obtain(text, 0, text.length(), textPaint, width)
+                    .setIncludePad(false)
+                    .setTextDirection(layoutsRtl
+                            ? TextDirectionHeuristics.FIRSTSTRONG_RTL
+                            : TextDirectionHeuristics.FIRSTSTRONG_LTR)
+                    .build();
+        }
+        return new StaticLayout(text, textPaint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+    }
+
+    private static int getLayoutWidth(@Nullable StaticLayout layout) {
+        return layout == null ? 0 : layout.getWidth();
+    }
+
+    private static int getLayoutHeight(@Nullable StaticLayout layout) {
+        return layout == null ? 0 : layout.getHeight();
+    }
+
+    @Override
+    public void onRtlPropertiesChanged(int layoutDirection) {
+        super.onRtlPropertiesChanged(layoutDirection);
+        boolean rtl = layoutDirection == LAYOUT_DIRECTION_RTL;
+        if (layoutsRtl == rtl) {
+            // Also called on every attach, once the direction is resolved again
+            return;
+        }
+        layoutsRtl = rtl;
+        // Rebuilt with the text direction of the new layout direction
+        checkedLayout = null;
+        uncheckedLayout = null;
+        requestLayout();
+        invalidate();
+    }
+
+    private boolean isLayoutRtl() {
+        return getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+    }
+
+    /**
+     * Return the left edge of the checked or unchecked text, aligned to the start of the content.
+     */
+    float getTextLeft(boolean checked) {
+        return getLayoutLeft(checked ? checkedLayout : uncheckedLayout);
+    }
+
+    private float getLayoutLeft(@Nullable StaticLayout layout) {
+        if (isLayoutRtl()) {
+            return getWidth() - getPaddingStart() - getLayoutWidth(layout);
+        }
+        return getPaddingStart();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (checkedLayout == uncheckedLayout) {
+            // Same text, only the color changes
+            drawLayout(canvas, checkedLayout,
+                    ColorFilterTable.blend(textColor, checkedTextColor, checkedFraction), 1f);
+            return;
+        }
+        drawLayout(canvas, uncheckedLayout, textColor, 1f - checkedFraction);
+        drawLayout(canvas, checkedLayout, checkedTextColor, checkedFraction);
+    }
+
+    private void drawLayout(Canvas canvas, @Nullable StaticLayout layout, @ColorInt int color, float alpha) {
+        if (layout == null || alpha <= 0f) {
+            return;
+        }
+        textPaint.setColor(color);
+        textPaint.setAlpha(Math.round(Color.alpha(color) * alpha));
+
+        int saveCount = canvas.save();
+        canvas.translate(getLayoutLeft(layout), (getHeight() - layout.getHeight()) / 2f);
+        layout.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+}
@@ -1,24 +1,23 @@
 package com.rbelchior.tmbutton;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ArgbEvaluator;
-import android.animation.ObjectAnimator;
 import android.content.Context;
-import android.content.res.TypedArray;
-import android.graphics.Color;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.util.SparseArray;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.SoundEffectConstants;
 import android.view.View;
-import android.view.ViewPropertyAnimator;
+import android.view.ViewGroup;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
-import android.view.animation.DecelerateInterpolator;
 import android.widget.Checkable;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
@@ -28,10 +27,23 @@ import android.widget.TextView;
 
 import androidx.annotation.AttrRes;
 import androidx.annotation.ColorInt;
+import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.appcompat.content.res.AppCompatResources;
+import androidx.annotation.RequiresApi;
+import androidx.core.text.PrecomputedTextCompat;
 import androidx.core.widget.TextViewCompat;
+import androidx.dynamicanimation.animation.FloatPropertyCompat;
+import androidx.dynamicanimation.animation.SpringAnimation;
+
+import com.rbelchior.tmbutton.core.CheckedState;
+import com.rbelchior.tmbutton.core.Interpolation;
+import com.rbelchior.tmbutton.core.TextRules;
+import com.rbelchior.tmbutton.core.Timeline;
+import com.rbelchior.tmbutton.core.TimelineSampler;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * <p>
@@ -39,8 +51,12 @@ import androidx.core.widget.TextViewCompat;
  * colors, unchecked and checked color.
  * When the view is clicked, the state changes automatically with a scale and color animation.
  * </p>
- * <p><strong>Note:</strong> Make sure to call <code>android:clipChildren="false"</code> on the parent
- * layout, otherwise the scaling animation will not occur.</p>
+ * <p>The shadow burst is drawn in the overlay of the root view, so it is not clipped by parents.
+ * <strong>Note:</strong> On API 17 only, make sure to call <code>android:clipChildren="false"</code>
+ * on the parent layout, otherwise the scaling animation will not occur.</p>
+ * <p>The view can be inflated off the UI thread, e.g. with <code>AsyncLayoutInflater</code>:
+ * animators and animations are only created on the first animated change, and labels can be
+ * measured in the background with {@link #precomputeText(java.util.concurrent.Executor)}.</p>
  * <p><strong>XML attributes:</strong></p>
  * <p><code>icon_drawable</code>: icon drawable</p>
  * <p><code>color_unchecked</code>: color of the unchecked state, this is the default value</p>
@@ -48,38 +64,186 @@ import androidx.core.widget.TextViewCompat;
  */
 public class TMButton extends LinearLayout implements Checkable {
 
-    private static final DecelerateInterpolator INTERPOLATOR_DECELERATE = new DecelerateInterpolator(2.0f);
     private static final float SCALE_FACTOR = 2.5f;
     private static final int DURATION_COLOR = 300;
     private static final int DURATION_SHADOW_ANIM = 500;
 
+    private static final int CHANNEL_COLOR = 0;
+    private static final int CHANNEL_SHADOW = 1;
+
+    /**
+     * Timelines of the shadow burst, shared by all buttons as their range never changes.
+     */
+    private static final Timeline SHADOW_SCALE = new Timeline(Interpolation.DECELERATE, 2.0f, 1f, SCALE_FACTOR);
+    private static final Timeline SHADOW_ALPHA = new Timeline(Interpolation.DECELERATE, 2.0f, 1f, 0f);
+
+    @Nullable
+    private static volatile TMButtonMetrics metrics;
 
+    private FrameLayout iconLayout;
     private ImageView iconView;
+
+    /**
+     * Created on the first animated check, see {@link #ensureShadowView()}.
+     */
+    @Nullable
     private ImageView shadowIconView;
+
+    /**
+     * View whose overlay holds {@link #shadowIconView} while the burst animates, API 18+ only.
+     */
+    @Nullable
+    private ViewGroup shadowOverlayHost;
+    private final int[] overlayLocation = new int[2];
+
+    /**
+     * Created only when a text is set, see {@link #ensureTextSwitcher(Context, AttributeSet)}.
+     */
+    @Nullable
     private TextSwitcher textSwitcher;
 
-    private ViewPropertyAnimator shadowAnimator;
-    private ObjectAnimator colorAnimator;
+    /**
+     * Replaces {@link #textSwitcher} in stable text mode, see {@link #ensureStableLabel(Context)}.
+     */
+    @Nullable
+    private StableLabelView stableLabel;
+    private boolean stableText;
+
+    /**
+     * Receives the frames of the color and shadow animations from {@link TMButtonAnimationClock},
+     * created on the first animated change.
+     */
+    @Nullable
+    private AnimationTarget animationTarget;
 
-    private boolean isChecked;
-    private boolean broadcasting;
+    /**
+     * Press feedback, created on the first touch, see {@link PressSpring}.
+     */
+    @Nullable
+    private SpringAnimation pressSpring;
+
+    /**
+     * Shared filters between {@link #colorUnchecked} (fraction 0) and {@link #colorChecked}
+     * (fraction 1), see {@link #getColorFilterTable()}.
+     */
+    @Nullable
+    private ColorFilterTable colorFilterTable;
+
+    /**
+     * Color of the icon shown, from 0 ({@link #colorUnchecked}) to 1 ({@link #colorChecked}),
+     * with the range of the running color animation.
+     */
+    private float iconColorFraction;
+    private final Timeline colorTimeline = new Timeline(Interpolation.ACCELERATE_DECELERATE, 0f, 0f, 0f);
+
+    /**
+     * Checked state, with the broadcast guard and the state of the debounced listener.
+     */
+    private final CheckedState state = new CheckedState();
+
+    /**
+     * Event time of the last touch up, to measure the start latency of the animation it triggers.
+     */
+    private long lastTouchUpTime;
+
+    /**
+     * True while the color animation counts against {@link TMButtonAnimationGovernor}.
+     */
+    private boolean holdingAnimationSlot;
+    @Nullable
+    private AnimationFrameTracker frameTracker;
 
     private int colorUnchecked;
     private int colorChecked;
     private String textChecked;
     private String textUnchecked;
+    @Nullable
+    private PrecomputedTextCompat precomputedTextChecked;
+    @Nullable
+    private PrecomputedTextCompat precomputedTextUnchecked;
+    private int textAppearanceResId = -1;
+    private int drawablePadding;
 
     private Drawable checkedDrawable;
 
+    /**
+     * Resource of {@link #checkedDrawable}, or 0 when unknown.
+     */
+    @DrawableRes
+    private int checkedDrawableResId;
+
+    /**
+     * Rasterized {@link #checkedDrawable} shown by the shadow, see {@link TMButtonIconCache}.
+     */
+    @Nullable
+    private BitmapDrawable shadowSprite;
+
+    /**
+     * Copy of {@link #checkedDrawable} shown by the shadow, see {@link #getShadowDrawable()}.
+     */
+    @Nullable
+    private Drawable shadowDrawable;
+
+    /**
+     * Wrapper of {@link #checkedDrawable} shown by the icon view on API 29+, see {@link #updateIconDrawable()}.
+     */
+    @Nullable
+    private RenderNodeTintDrawable tintDrawable;
+
+    /**
+     * Icon shown when an unchecked drawable is set, see {@link #updateIconDrawable()}.
+     */
+    @Nullable
+    private CrossfadeDrawable crossfadeDrawable;
+
+    /**
+     * Icon set with {@link #setIconAsync(TMButtonIconPrefetcher, Object, Drawable)}, with the key
+     * of its last request.
+     */
+    @Nullable
+    private FixedSizeDrawable iconSlot;
+    @Nullable
+    private Object iconKey;
+
     /**
      * Optional drawable to be specifically used when unchecked.
-     * Note the animations are not as smooth in this case. To be improved.
+     * It is crossfaded with {@link #checkedDrawable}, see {@link CrossfadeDrawable}.
      */
     @Nullable
     private Drawable uncheckedDrawable;
 
     private OnCheckedChangeListener onCheckedChangeListener;
 
+    /**
+     * When positive, {@link #onCheckedChangeListener} only receives the settled state, once no
+     * change happened for this long. See {@link #setOnCheckedChangeListener(OnCheckedChangeListener, long)}.
+     */
+    private long checkedChangeDebounceMs;
+
+    @Nullable
+    private ArrayList<OnCheckedChangeListener> onCheckedChangeListeners;
+
+    /**
+     * Group this button belongs to, with the state of its pending changes, see {@link TMButtonGroup}.
+     */
+    @Nullable
+    TMButtonGroup group;
+    int groupFlags;
+
+    /**
+     * Counts of this button, only allocated once {@link TMButtonStats} is enabled.
+     */
+    @Nullable
+    long[] statsCounts;
+
+    /**
+     * Store receiving every change of this button, with the id of the bound item,
+     * see {@link #bindToStore(TMButtonStateStore, long)}.
+     */
+    @Nullable
+    private TMButtonStateStore stateStore;
+    private long stateStoreId;
+
     public TMButton(@NonNull Context context) {
         this(context, null, 0);
     }
@@ -99,141 +263,276 @@ public class TMButton extends LinearLayout implements Checkable {
 
         setClickable(true);
 
-        isChecked = false;
-
         setIconViewUnchecked();
         setTextViewUnchecked();
 
-        shadowIconView.setVisibility(View.GONE);
-        shadowAnimator = shadowIconView.animate();
-        colorAnimator = ObjectAnimator
-                .ofObject(iconView, "colorFilter", new ArgbEvaluator(), 0, 0)
-                .setDuration(DURATION_COLOR);
+        TMButtonStats.record(this, TMButtonStats.EVENT_INFLATE);
     }
 
     private void initViews(Context context, AttributeSet attrs, int defStyleAttr) {
         setOrientation(LinearLayout.HORIZONTAL);
-        setLayoutParams(new LinearLayout.LayoutParams(context, attrs));
         setClipChildren(false);
         setGravity(Gravity.CENTER_VERTICAL);
 
         iconView = new ImageView(context, attrs, defStyleAttr);
-        shadowIconView = new ImageView(context, attrs, defStyleAttr);
-
-        textSwitcher = new TextSwitcher(context, attrs);
-        textSwitcher.setFactory(() -> createTextView(context, attrs));
-        textSwitcher.setInAnimation(createTextSwitcherAnim(context, android.R.anim.fade_in));
-        textSwitcher.setOutAnimation(createTextSwitcherAnim(context, android.R.anim.fade_out));
-        addView(textSwitcher);
 
-        final FrameLayout iconLayout = new FrameLayout(context, attrs, defStyleAttr);
+        iconLayout = new FrameLayout(context, attrs, defStyleAttr);
         iconLayout.setClipChildren(false);
         iconLayout.addView(iconView);
-        iconLayout.addView(shadowIconView);
         addView(iconLayout);
     }
 
-    @NonNull
-    private TextView createTextView(Context context, AttributeSet attrs) {
-        return new TextView(context, attrs);
+    /**
+     * Create the shadow view, only needed once the view is checked with animation.
+     */
+    private void ensureShadowView() {
+        if (shadowIconView != null) {
+            return;
+        }
+        shadowIconView = new ImageView(getContext());
+        shadowIconView.setScaleType(iconView.getScaleType());
+        shadowIconView.setPadding(iconView.getPaddingLeft(), iconView.getPaddingTop(),
+                iconView.getPaddingRight(), iconView.getPaddingBottom());
+        shadowIconView.setVisibility(View.GONE);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            // Without overlays, the shadow stays next to the icon, relying on clipChildren=false
+            iconLayout.addView(shadowIconView);
+        }
+    }
+
+    /**
+     * Add the shadow to the overlay of the root view, on top of the icon. It is only part of the
+     * hierarchy while animating, and drawing outside this view's bounds needs no clipChildren.
+     */
+    @RequiresApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private void addShadowToOverlay() {
+        View rootView = getRootView();
+        if (!(rootView instanceof ViewGroup) || rootView == this) {
+            return;
+        }
+        ViewGroup host = (ViewGroup) rootView;
+        int width = iconView.getWidth();
+        int height = iconView.getHeight();
+        shadowIconView.measure(
+                MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        shadowIconView.layout(0, 0, width, height);
+        host.getOverlay().add(shadowIconView);
+        shadowOverlayHost = host;
+        updateShadowOverlayPosition();
+    }
+
+    /**
+     * Move the shadow in the overlay over the icon, which may have moved since the last frame,
+     * e.g. when the list holding the button scrolls during the burst.
+     */
+    private void updateShadowOverlayPosition() {
+        shadowOverlayHost.getLocationInWindow(overlayLocation);
+        int hostX = overlayLocation[0];
+        int hostY = overlayLocation[1];
+        // Icon layout is not scaled when pressed, unlike the icon itself
+        iconLayout.getLocationInWindow(overlayLocation);
+        int left = overlayLocation[0] - hostX + iconView.getLeft();
+        int top = overlayLocation[1] - hostY + iconView.getTop();
+        shadowIconView.offsetLeftAndRight(left - shadowIconView.getLeft());
+        shadowIconView.offsetTopAndBottom(top - shadowIconView.getTop());
     }
 
     @NonNull
-    private Animation createTextSwitcherAnim(Context context, int fade_in) {
-        Animation fadeIn = AnimationUtils.loadAnimation(context, fade_in);
-        fadeIn.setDuration(DURATION_COLOR);
-        return fadeIn;
+    private AnimationTarget getAnimationTarget() {
+        if (animationTarget == null) {
+            animationTarget = new AnimationTarget();
+        }
+        return animationTarget;
     }
 
-    private void initAttrs(Context context, AttributeSet attrs) {
-        if (attrs == null) {
+    /**
+     * Animate the icon from its current color fraction to the given one. A change of direction
+     * midway starts from the color shown, and only runs the remaining part of the duration.
+     */
+    private void animateIconColor(float targetFraction) {
+        // Keeps the fraction shown
+        cancelColorAnimation();
+        colorTimeline.setRange(iconColorFraction, targetFraction);
+        TMButtonAnimationClock.get().start(getAnimationTarget(), CHANNEL_COLOR,
+                TimelineSampler.partialDuration(DURATION_COLOR, iconColorFraction, targetFraction),
+                TMButtonAnimationGovernor.getDurationScale(getContext()));
+    }
+
+    /**
+     * Stop the color animation where it is, so the next run continues from the color shown.
+     * Callers cancelling for good apply the state they need afterwards.
+     */
+    private void cancelColorAnimation() {
+        if (animationTarget == null
+                || !TMButtonAnimationClock.get().cancel(animationTarget, CHANNEL_COLOR)) {
             return;
         }
+        TMButtonStats.record(this, TMButtonStats.EVENT_CANCEL);
+        onColorAnimationStopped();
+    }
 
-        TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.TMButton);
-
-        initColorDefault(attributes);
-        initTextViewAttrs(context, attributes);
-        initColorChecked(attributes);
-        initCheckedDrawable(attributes);
-        initUncheckedDrawable(attributes);
+    private void onColorAnimationStopped() {
+        if (colorTimeline.getTo() == 0f) {
+            // The check animation is tracked until the end of the shadow burst
+            stopFrameTracking();
+        }
+        releaseAnimationSlotIfIdle();
+    }
 
-        attributes.recycle();
+    /**
+     * Stop the shadow burst. Keeps the slot of {@link TMButtonAnimationGovernor}, as callers
+     * either start a new animation or release it themselves.
+     */
+    private void cancelShadowAnimation() {
+        if (animationTarget != null
+                && TMButtonAnimationClock.get().cancel(animationTarget, CHANNEL_SHADOW)) {
+            resetShadowView();
+            stopFrameTracking();
+        }
     }
 
-    private void initTextViewAttrs(Context context, TypedArray attributes) {
-        textChecked = attributes.getString(R.styleable.TMButton_tmbutton_text_checked);
-        textUnchecked = attributes.getString(R.styleable.TMButton_tmbutton_text_unchecked);
-        int textAppearanceResId = attributes.getResourceId(R.styleable.TMButton_tmbutton_text_appearance, -1);
-        int drawablePadding = attributes.getDimensionPixelSize(R.styleable.TMButton_tmbutton_drawable_padding, 0);
+    /**
+     * Applies the frames of both animations without allocating: fractions are primitives and
+     * color filters come from the shared {@link ColorFilterTable}.
+     */
+    private final class AnimationTarget implements TMButtonAnimationClock.Target {
 
-        if (TextUtils.isEmpty(textUnchecked) && TextUtils.isEmpty(textChecked)) {
-            textSwitcher.setVisibility(View.GONE);
-            return;
+        @Override
+        public void onAnimationFrame(int channel, float fraction, long frameTimeNanos) {
+            if (frameTracker != null) {
+                frameTracker.onFrame(frameTimeNanos);
+            }
+            if (channel == CHANNEL_COLOR) {
+                applyIconColor(colorTimeline.valueAt(fraction));
+                if (stableLabel != null) {
+                    stableLabel.setCheckedFraction(iconColorFraction);
+                }
+            } else {
+                if (shadowOverlayHost != null) {
+                    updateShadowOverlayPosition();
+                }
+                float scale = SHADOW_SCALE.valueAt(fraction);
+                shadowIconView.setScaleX(scale);
+                shadowIconView.setScaleY(scale);
+                shadowIconView.setAlpha(SHADOW_ALPHA.valueAt(fraction));
+            }
         }
-        if (!TextUtils.isEmpty(textUnchecked) && TextUtils.isEmpty(textChecked)) {
-            textChecked = textUnchecked;
-        } else if (TextUtils.isEmpty(textUnchecked) && !TextUtils.isEmpty(textChecked)) {
-            textUnchecked = textChecked;
+
+        @Override
+        public void onAnimationEnd(int channel) {
+            if (channel == CHANNEL_COLOR) {
+                onColorAnimationStopped();
+            } else {
+                resetShadowView();
+                stopFrameTracking();
+                releaseAnimationSlotIfIdle();
+            }
         }
+    }
+
+    @NonNull
+    private ColorFilterTable getColorFilterTable() {
+        if (colorFilterTable == null) {
+            colorFilterTable = ColorFilterTable.obtain(colorUnchecked, colorChecked);
+        }
+        return colorFilterTable;
+    }
 
-        textSwitcher.setCurrentText(textChecked);
-        textSwitcher.setText(textUnchecked);
+    /**
+     * Create the text switcher, placed before the icon. Only needed when a text is set.
+     *
+     * @param attrs attributes of the inflated {@link TMButton}, or null when created from a setter
+     */
+    private void ensureTextSwitcher(Context context, @Nullable AttributeSet attrs) {
+        if (textSwitcher != null) {
+            return;
+        }
+        textSwitcher = new TextSwitcher(context, attrs);
+        textSwitcher.setFactory(() -> createTextView(context, attrs));
 
         for (int i = 0; i < textSwitcher.getChildCount(); i++) {
             TextView textView = (TextView) textSwitcher.getChildAt(i);
-            TextViewCompat.setTextAppearance(textView, textAppearanceResId);
+            if (textAppearanceResId != -1) {
+                TextViewCompat.setTextAppearance(textView, textAppearanceResId);
+            }
             FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) textView.getLayoutParams();
             params.setMarginEnd(drawablePadding);
         }
+        addView(textSwitcher, 0);
     }
 
-    private void initColorDefault(TypedArray attributes) {
-        setColorUnchecked(
-                attributes.getColor(
-                        R.styleable.TMButton_color_unchecked,
-                        Color.LTGRAY));
+    /**
+     * Create the label of stable text mode, which keeps the size of the larger text and switches
+     * texts by drawing only, so toggling does not request a layout.
+     */
+    private void ensureStableLabel(Context context) {
+        if (stableLabel != null) {
+            return;
+        }
+        stableLabel = new StableLabelView(context, textAppearanceResId);
+        stableLabel.setCheckedTextColor(colorChecked);
+        LayoutParams params = new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+        params.setMarginEnd(drawablePadding);
+        addView(stableLabel, 0, params);
     }
 
-    private void initColorChecked(TypedArray attributes) {
-        setColorChecked(
-                attributes.getColor(
-                        R.styleable.TMButton_color_checked,
-                        Color.MAGENTA));
+    @NonNull
+    private TextView createTextView(Context context, AttributeSet attrs) {
+        return new TextView(context, attrs);
     }
 
-    private void initCheckedDrawable(TypedArray attributes) {
-        if (!attributes.hasValue(R.styleable.TMButton_icon_drawable)) {
-            throw new IllegalArgumentException("Missing attribute: icon_drawable");
-        }
-        Drawable drawable;
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            drawable = attributes.getDrawable(R.styleable.TMButton_icon_drawable);
-        } else {
-            int iconResId = attributes.getResourceId(R.styleable.TMButton_icon_drawable, 0);
-            drawable = AppCompatResources.getDrawable(getContext(), iconResId);
+    /**
+     * Load the fade animations of the text switcher on the first animated change, rather than
+     * at construction time, which may happen off the UI thread.
+     */
+    private void ensureTextSwitcherAnimations() {
+        if (textSwitcher.getInAnimation() != null) {
+            return;
         }
+        textSwitcher.setInAnimation(createTextSwitcherAnim(getContext(), android.R.anim.fade_in));
+        textSwitcher.setOutAnimation(createTextSwitcherAnim(getContext(), android.R.anim.fade_out));
+    }
 
-        setIconDrawable(drawable);
+    @NonNull
+    private Animation createTextSwitcherAnim(Context context, int fade_in) {
+        Animation fadeIn = AnimationUtils.loadAnimation(context, fade_in);
+        fadeIn.setDuration(DURATION_COLOR);
+        return fadeIn;
     }
 
-    private void initUncheckedDrawable(TypedArray attributes) {
-        if (!attributes.hasValue(R.styleable.TMButton_unchecked_drawable)) {
-            // this attr is optional
+    private void initAttrs(Context context, AttributeSet attrs) {
+        if (attrs == null) {
             return;
         }
 
-        Drawable drawable;
+        TMButtonConfig config = TMButtonConfig.obtain(context, attrs);
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            drawable = attributes.getDrawable(R.styleable.TMButton_unchecked_drawable);
-        } else {
-            int iconResId = attributes.getResourceId(R.styleable.TMButton_unchecked_drawable, 0);
-            drawable = AppCompatResources.getDrawable(getContext(), iconResId);
+        setColorUnchecked(config.colorUnchecked);
+        initTextViewAttrs(context, attrs, config);
+        setColorChecked(config.colorChecked);
+        setIconDrawable(config.newCheckedDrawable(context), config.checkedDrawableResId);
+
+        Drawable uncheckedDrawable = config.newUncheckedDrawable(context);
+        if (uncheckedDrawable != null) {
+            setUncheckedDrawable(uncheckedDrawable);
         }
+    }
 
-        setUncheckedDrawable(drawable);
+    private void initTextViewAttrs(Context context, AttributeSet attrs, TMButtonConfig config) {
+        textAppearanceResId = config.textAppearanceResId;
+        drawablePadding = config.drawablePadding;
+        stableText = config.stableText;
+
+        if (!TextRules.hasText(config.textChecked, config.textUnchecked)) {
+            return;
+        }
+        if (stableText) {
+            ensureStableLabel(context);
+        } else {
+            ensureTextSwitcher(context, attrs);
+        }
+        setText(config.textChecked, config.textUnchecked);
     }
 
     @Override
@@ -251,92 +550,100 @@ public class TMButton extends LinearLayout implements Checkable {
     }
 
     private void animateCheck() {
-        if (isUncheckedDrawableAvailable()) {
-            iconView.setImageDrawable(checkedDrawable);
-        }
+        TMButtonStats.record(this, TMButtonStats.EVENT_ANIMATE_CHECK);
 
+        ensureShadowView();
+        cancelShadowAnimation();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            addShadowToOverlay();
+        }
+        updateShadowDrawable();
         shadowIconView.setVisibility(View.VISIBLE);
+        // Removed by resetShadowView()
+        shadowIconView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        TMButtonAnimationClock.get().start(getAnimationTarget(), CHANNEL_SHADOW, DURATION_SHADOW_ANIM,
+                TMButtonAnimationGovernor.getDurationScale(getContext()));
 
-        shadowAnimator.cancel();
-        shadowAnimator
-                .scaleX(SCALE_FACTOR)
-                .scaleY(SCALE_FACTOR)
-                .alpha(0.0f)
-                .setDuration(DURATION_SHADOW_ANIM)
-                .setListener(shadowAnimatorListener)
-                .setInterpolator(INTERPOLATOR_DECELERATE);
+        // Also crossfades the stable label
+        animateIconColor(1f);
 
-        colorAnimator.cancel();
-        colorAnimator.removeAllListeners();
-        colorAnimator.addListener(colorAnimatorCheckListener);
-        colorAnimator.setObjectValues(colorUnchecked, colorChecked);
-        colorAnimator.start();
+        if (textSwitcher != null) {
+            ((TextView) textSwitcher.getNextView()).setTextColor(colorChecked);
+            showNextText(true);
+        }
 
-        ((TextView) textSwitcher.getNextView()).setTextColor(colorChecked);
-        textSwitcher.setText(textChecked);
+        startFrameTracking(TMButtonMetrics.ANIMATION_CHECK);
     }
 
     private void animateUnCheck() {
-        if (isUncheckedDrawableAvailable()) {
-            iconView.setImageDrawable(uncheckedDrawable);
-        }
-
-        shadowAnimator.cancel();
-        colorAnimator.cancel();
-        colorAnimator.removeAllListeners();
-        colorAnimator.addListener(colorAnimatorUncheckListener);
-        colorAnimator.setObjectValues(colorChecked, colorUnchecked);
-        colorAnimator.start();
+        TMButtonStats.record(this, TMButtonStats.EVENT_ANIMATE_UNCHECK);
 
-        textSwitcher.setText(textUnchecked);
-    }
+        cancelShadowAnimation();
+        animateIconColor(0f);
 
+        if (textSwitcher != null) {
+            showNextText(false);
+        }
 
-    private final AnimatorListenerAdapter shadowAnimatorListener = new AnimatorListenerAdapter() {
+        startFrameTracking(TMButtonMetrics.ANIMATION_UNCHECK);
+    }
 
-        @Override
-        public void onAnimationCancel(Animator animation) {
-            resetShadowView();
+    private void startFrameTracking(int animation) {
+        long touchUpTime = lastTouchUpTime;
+        lastTouchUpTime = 0;
+        if (metrics == null) {
+            return;
+        }
+        if (frameTracker == null) {
+            frameTracker = new AnimationFrameTracker(this);
         }
+        frameTracker.start(animation, touchUpTime);
+    }
 
-        @Override
-        public void onAnimationEnd(Animator animation) {
-            resetShadowView();
+    private void stopFrameTracking() {
+        if (frameTracker != null) {
+            frameTracker.stop();
         }
-    };
+    }
 
     private void resetShadowView() {
+        if (shadowOverlayHost != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            shadowOverlayHost.getOverlay().remove(shadowIconView);
+            shadowOverlayHost = null;
+        }
         shadowIconView.setVisibility(View.GONE);
         shadowIconView.setScaleX(1.0f);
         shadowIconView.setScaleY(1.0f);
         shadowIconView.setAlpha(1.0f);
-        shadowIconView.setColorFilter(colorChecked);
+        shadowIconView.setLayerType(View.LAYER_TYPE_NONE, null);
     }
 
-    private final Animator.AnimatorListener colorAnimatorCheckListener = new AnimatorListenerAdapter() {
-        @Override
-        public void onAnimationCancel(Animator animation) {
-            setIconViewChecked();
-        }
-
-        @Override
-        public void onAnimationEnd(Animator animation) {
-            setIconViewChecked();
+    private boolean acquireAnimationSlot() {
+        if (!holdingAnimationSlot) {
+            holdingAnimationSlot = TMButtonAnimationGovernor.tryAcquire(this);
         }
-    };
-
-    private final Animator.AnimatorListener colorAnimatorUncheckListener = new AnimatorListenerAdapter() {
-        @Override
-        public void onAnimationCancel(Animator animation) {
-            setIconViewUnchecked();
+        return holdingAnimationSlot;
+    }
 
+    private void releaseAnimationSlot() {
+        if (holdingAnimationSlot) {
+            holdingAnimationSlot = false;
+            TMButtonAnimationGovernor.release();
         }
+    }
 
-        @Override
-        public void onAnimationEnd(Animator animation) {
-            setIconViewUnchecked();
+    /**
+     * Release the slot once neither the color nor the shadow animation is running: the shadow
+     * burst outlasts the color animation of a check.
+     */
+    private void releaseAnimationSlotIfIdle() {
+        TMButtonAnimationClock clock = TMButtonAnimationClock.get();
+        if (animationTarget == null
+                || (!clock.isRunning(animationTarget, CHANNEL_COLOR)
+                && !clock.isRunning(animationTarget, CHANNEL_SHADOW))) {
+            releaseAnimationSlot();
         }
-    };
+    }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
@@ -344,33 +651,179 @@ public class TMButton extends LinearLayout implements Checkable {
 
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
-                iconView.animate()
-                        .scaleX(0.7f)
-                        .scaleY(0.7f)
-                        .setDuration(150)
-                        .setInterpolator(INTERPOLATOR_DECELERATE);
+                TMButtonStats.record(this, TMButtonStats.EVENT_TOUCH);
+                getPressSpring().animateToFinalPosition(PressSpring.SCALE_PRESSED);
                 break;
 
             case MotionEvent.ACTION_UP:
+                lastTouchUpTime = event.getEventTime();
+                // fall through
             case MotionEvent.ACTION_CANCEL:
-                iconView.animate()
-                        .scaleX(1)
-                        .scaleY(1)
-                        .setInterpolator(INTERPOLATOR_DECELERATE);
+                getPressSpring().animateToFinalPosition(PressSpring.SCALE_RELEASED);
                 break;
         }
         return result;
     }
 
+    @NonNull
+    private SpringAnimation getPressSpring() {
+        if (pressSpring == null) {
+            pressSpring = PressSpring.create(iconView, ICON_SCALE);
+        }
+        return pressSpring;
+    }
+
+    /**
+     * Scale of the icon view on both axes.
+     */
+    private static final FloatPropertyCompat<View> ICON_SCALE = new FloatPropertyCompat<View>("iconScale") {
+        @Override
+        public float getValue(View view) {
+            return view.getScaleX();
+        }
+
+        @Override
+        public void setValue(View view, float value) {
+            view.setScaleX(value);
+            view.setScaleY(value);
+        }
+    };
+
     /**
      * Set the icon drawable
      *
      * @param iconDrawable {@link Drawable}
      */
     public void setIconDrawable(Drawable iconDrawable) {
-        this.checkedDrawable = iconDrawable;
-        this.iconView.setImageDrawable(iconDrawable);
-        this.shadowIconView.setImageDrawable(iconDrawable);
+        setIconDrawable(iconDrawable, 0);
+    }
+
+    /**
+     * Set the icon drawable from a resource. Unlike {@link #setIconDrawable(Drawable)}, this allows
+     * the shadow to use the shared sprite of {@link TMButtonIconCache}.
+     *
+     * @param resId drawable resource
+     */
+    public void setIconResource(@DrawableRes int resId) {
+        setIconDrawable(DrawableCache.get(getContext(), resId), resId);
+    }
+
+    /**
+     * <p>
+     * Set the icon loaded asynchronously for the given key. A cached icon is shown right away,
+     * otherwise the placeholder is shown until the icon is loaded. The icon is only applied if the
+     * key is still the last one set, so a recycled row never shows the icon of its previous item.
+     * </p>
+     * <p>
+     * The icon keeps the intrinsic size of the first placeholder or icon shown this way, so
+     * swapping the placeholder for the loaded icon does not request a layout. Icons are
+     * fit-centered in that size.
+     * </p>
+     *
+     * @param prefetcher  prefetcher loading and caching the icons
+     * @param key         key of the icon, passed to its {@link TMButtonIconLoader}
+     * @param placeholder drawable shown while loading, or null
+     */
+    public void setIconAsync(@NonNull TMButtonIconPrefetcher prefetcher, @NonNull Object key,
+                             @Nullable Drawable placeholder) {
+        Drawable cached = prefetcher.getCached(key);
+        Drawable drawable = cached;
+        if (drawable == null && placeholder != null) {
+            // Placeholders are usually shared by all rows
+            drawable = DrawableCache.copy(getContext(), placeholder);
+            if (drawable == null) {
+                drawable = placeholder;
+            }
+        }
+        if (iconSlot == null || checkedDrawable != iconSlot) {
+            Drawable sizeSource = drawable != null ? drawable : checkedDrawable;
+            iconSlot = sizeSource == null
+                    ? new FixedSizeDrawable(-1, -1)
+                    : new FixedSizeDrawable(sizeSource.getIntrinsicWidth(), sizeSource.getIntrinsicHeight());
+            setIconDrawable(iconSlot, 0);
+        }
+        iconKey = key;
+        setSlotDrawable(drawable);
+        if (cached == null) {
+            prefetcher.load(key, iconLoadedListener);
+        }
+    }
+
+    private final TMButtonIconPrefetcher.OnIconLoadedListener iconLoadedListener = (key, drawable) -> {
+        if (key.equals(iconKey) && iconSlot != null && checkedDrawable == iconSlot) {
+            setSlotDrawable(drawable);
+        }
+    };
+
+    private void setSlotDrawable(@Nullable Drawable drawable) {
+        iconSlot.setDrawable(drawable);
+        // The shadow copies the new content on the next burst
+        shadowDrawable = null;
+    }
+
+    private void setIconDrawable(Drawable iconDrawable, @DrawableRes int resId) {
+        if (iconDrawable != iconSlot) {
+            iconKey = null;
+        }
+        this.checkedDrawable = iconDrawable == null ? null : DrawableCache.prepareForColorFilter(iconDrawable);
+        this.checkedDrawableResId = resId;
+        this.shadowSprite = null;
+        this.shadowDrawable = null;
+        updateIconDrawable();
+        if (shadowIconView != null) {
+            // Set again with the next burst, see updateShadowDrawable()
+            this.shadowIconView.setImageDrawable(null);
+        }
+    }
+
+    /**
+     * Show the shared sprite of the icon in the shadow when {@link TMButtonIconCache} is enabled,
+     * so the burst does not render the icon's vector paths again.
+     */
+    private void updateShadowDrawable() {
+        Drawable drawable = getShadowDrawable();
+        if (checkedDrawableResId != 0 && checkedDrawable != null && TMButtonIconCache.isEnabled()) {
+            int width = iconView.getWidth() - iconView.getPaddingLeft() - iconView.getPaddingRight();
+            int height = iconView.getHeight() - iconView.getPaddingTop() - iconView.getPaddingBottom();
+            int intrinsicWidth = checkedDrawable.getIntrinsicWidth();
+            int intrinsicHeight = checkedDrawable.getIntrinsicHeight();
+            if (intrinsicWidth > 0 && intrinsicHeight > 0) {
+                // Size of the icon once fit-centered in the icon view
+                float scale = Math.min(width / (float) intrinsicWidth, height / (float) intrinsicHeight);
+                width = Math.round(intrinsicWidth * scale);
+                height = Math.round(intrinsicHeight * scale);
+            }
+            Bitmap sprite = TMButtonIconCache.obtain(getContext(), checkedDrawableResId, width, height);
+            if (sprite != null) {
+                if (shadowSprite == null || shadowSprite.getBitmap() != sprite) {
+                    shadowSprite = new BitmapDrawable(getResources(), sprite);
+                }
+                drawable = shadowSprite;
+            }
+        }
+        if (drawable != null && drawable != checkedDrawable) {
+            // Set on the drawable, ImageView#setColorFilter would mutate it
+            drawable = DrawableCache.prepareForColorFilter(drawable);
+            drawable.setColorFilter(getColorFilterTable().get(1f));
+        }
+        if (shadowIconView.getDrawable() != drawable) {
+            shadowIconView.setImageDrawable(drawable);
+        }
+    }
+
+    /**
+     * Return a copy of {@link #checkedDrawable} sharing its state, so the shadow has its own
+     * callback and color filter. Falls back to the icon's own instance if it cannot be copied.
+     */
+    @Nullable
+    private Drawable getShadowDrawable() {
+        if (shadowDrawable == null && checkedDrawable != null) {
+            shadowDrawable = DrawableCache.copy(getContext(), checkedDrawable);
+            if (shadowDrawable == null) {
+                shadowDrawable = checkedDrawable;
+            }
+        }
+        return shadowDrawable;
     }
 
     /**
@@ -379,7 +832,131 @@ public class TMButton extends LinearLayout implements Checkable {
      * @param uncheckedDrawable {@link Drawable}
      */
     public void setUncheckedDrawable(@Nullable Drawable uncheckedDrawable) {
-        this.uncheckedDrawable = uncheckedDrawable;
+        this.uncheckedDrawable = uncheckedDrawable == null ? null
+                : DrawableCache.prepareForColorFilter(uncheckedDrawable);
+        updateIconDrawable();
+    }
+
+    /**
+     * Set the drawable of the icon view. With an unchecked drawable, both icons are shown through
+     * a {@link CrossfadeDrawable}. Otherwise on API 29+, the icon is wrapped in a
+     * {@link RenderNodeTintDrawable}, so color animations do not record it again on every frame.
+     */
+    private void updateIconDrawable() {
+        tintDrawable = null;
+        crossfadeDrawable = null;
+        Drawable drawable = checkedDrawable;
+        if (checkedDrawable != null && isUncheckedDrawableAvailable()) {
+            crossfadeDrawable = new CrossfadeDrawable(uncheckedDrawable, checkedDrawable);
+            drawable = crossfadeDrawable;
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && checkedDrawable != null) {
+            tintDrawable = new RenderNodeTintDrawable(checkedDrawable);
+            drawable = tintDrawable;
+        }
+        iconView.setImageDrawable(drawable);
+        applyIconColor(iconColorFraction);
+    }
+
+    /**
+     * Apply the icon color at the given fraction, 0 being {@link #colorUnchecked} and 1
+     * {@link #colorChecked}, without allocating: the filter comes from the shared
+     * {@link ColorFilterTable}. The crossfade between unchecked and checked drawables follows it.
+     */
+    private void applyIconColor(float fraction) {
+        iconColorFraction = fraction;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && tintDrawable != null) {
+            tintDrawable.setColor(getColorFilterTable(), fraction);
+            return;
+        }
+        if (crossfadeDrawable != null) {
+            crossfadeDrawable.setFraction(fraction);
+        }
+        // Set on the drawable, ImageView#setColorFilter would mutate it
+        Drawable drawable = iconView.getDrawable();
+        if (drawable != null) {
+            drawable.setColorFilter(getColorFilterTable().get(fraction));
+        }
+    }
+
+    /**
+     * Set the texts displayed before the icon. When only one of them is provided, it is used for
+     * both states. The text views are only created the first time a text is set.
+     *
+     * @param textChecked   text of the checked state
+     * @param textUnchecked text of the unchecked state
+     */
+    public void setText(@Nullable String textChecked, @Nullable String textUnchecked) {
+        if (!TextRules.hasText(textChecked, textUnchecked)) {
+            this.textChecked = null;
+            this.textUnchecked = null;
+            if (textSwitcher != null) {
+                textSwitcher.setVisibility(View.GONE);
+            }
+            if (stableLabel != null) {
+                stableLabel.setVisibility(View.GONE);
+            }
+            return;
+        }
+        this.textChecked = TextRules.checkedText(textChecked, textUnchecked);
+        this.textUnchecked = TextRules.uncheckedText(textChecked, textUnchecked);
+        this.precomputedTextChecked = null;
+        this.precomputedTextUnchecked = null;
+
+        if (stableText) {
+            ensureStableLabel(getContext());
+            stableLabel.setVisibility(View.VISIBLE);
+            stableLabel.setText(this.textChecked, this.textUnchecked);
+        } else {
+            ensureTextSwitcher(getContext(), null);
+            textSwitcher.setVisibility(View.VISIBLE);
+        }
+        if (state.isChecked()) {
+            setTextViewChecked();
+        } else {
+            setTextViewUnchecked();
+        }
+    }
+
+    /**
+     * <p>
+     * Measure the checked and unchecked texts on the given executor, so text layout does not
+     * happen on the UI thread when the view is shown or toggled. The precomputed texts replace
+     * the plain ones once ready.
+     * </p>
+     * <p>Call it after the texts and the text appearance are set, e.g. right after an
+     * asynchronous inflation. Has no effect in stable text mode, where both texts are already
+     * laid out once.</p>
+     *
+     * @param executor executor running the text measurement
+     */
+    public void precomputeText(@NonNull Executor executor) {
+        if (textSwitcher == null) {
+            return;
+        }
+        final String textChecked = this.textChecked;
+        final String textUnchecked = this.textUnchecked;
+        final PrecomputedTextCompat.Params params =
+                TextViewCompat.getTextMetricsParams((TextView) textSwitcher.getCurrentView());
+
+        executor.execute(() -> {
+            PrecomputedTextCompat checked = PrecomputedTextCompat.create(textChecked, params);
+            PrecomputedTextCompat unchecked = TextUtils.equals(textChecked, textUnchecked)
+                    ? checked
+                    : PrecomputedTextCompat.create(textUnchecked, params);
+            post(() -> onTextPrecomputed(textChecked, textUnchecked, checked, unchecked));
+        });
+    }
+
+    private void onTextPrecomputed(String textChecked, String textUnchecked,
+                                   PrecomputedTextCompat checked, PrecomputedTextCompat unchecked) {
+        if (!TextUtils.equals(textChecked, this.textChecked)
+                || !TextUtils.equals(textUnchecked, this.textUnchecked)) {
+            // Texts changed in the meantime
+            return;
+        }
+        precomputedTextChecked = checked;
+        precomputedTextUnchecked = unchecked;
+        applyText((TextView) textSwitcher.getCurrentView(), state.isChecked());
     }
 
     /**
@@ -390,6 +967,7 @@ public class TMButton extends LinearLayout implements Checkable {
      */
     public void setColorUnchecked(@ColorInt int color) {
         this.colorUnchecked = color;
+        this.colorFilterTable = null;
     }
 
     /**
@@ -400,6 +978,10 @@ public class TMButton extends LinearLayout implements Checkable {
      */
     public void setColorChecked(@ColorInt int color) {
         this.colorChecked = color;
+        this.colorFilterTable = null;
+        if (stableLabel != null) {
+            stableLabel.setCheckedTextColor(color);
+        }
     }
 
     /**
@@ -432,20 +1014,59 @@ public class TMButton extends LinearLayout implements Checkable {
      *                      already (un)checked.
      */
     public void setChecked(boolean checked, boolean animateChange, boolean forceUpdate) {
-        if (!forceUpdate && this.isChecked == checked) {
+        TMButtonStats.record(this, TMButtonStats.EVENT_SET_CHECKED);
+        if (!state.needsChange(checked, forceUpdate)) {
             return;
         }
-        this.isChecked = checked;
+        applyChecked(checked, animateChange);
+
+        // Avoid infinite recursions if setChecked() is called from a listener
+        if (!state.beginBroadcast()) {
+            return;
+        }
+
+        if (onCheckedChangeListener != null) {
+            if (checkedChangeDebounceMs > 0) {
+                removeCallbacks(debouncedCheckedChange);
+                postDelayed(debouncedCheckedChange, checkedChangeDebounceMs);
+                state.setChangePending(true);
+            } else {
+                onCheckedChangeListener.onCheckedChanged(this, state.isChecked());
+            }
+        }
+        if (onCheckedChangeListeners != null) {
+            for (int i = 0; i < onCheckedChangeListeners.size(); i++) {
+                onCheckedChangeListeners.get(i).onCheckedChanged(this, state.isChecked());
+            }
+        }
+        state.endBroadcast();
+    }
+
+    private void applyChecked(boolean checked, boolean animateChange) {
+        if (animateChange) {
+            // Releases the slot of the running animation, if any
+            cancelColorAnimation();
+            animateChange = acquireAnimationSlot();
+        }
+        boolean changed = state.isChecked() != checked;
+        state.setChecked(checked);
+        if (stateStore != null) {
+            stateStore.setChecked(stateStoreId, checked);
+        }
+        if (group != null && changed) {
+            // Before any listener, e.g. to uncheck the previous member in single choice mode
+            group.onButtonCheckedChanged(this, animateChange);
+        }
 
         if (animateChange) {
-            if (isChecked) {
+            if (checked) {
                 animateCheck();
             } else {
                 animateUnCheck();
             }
         } else {
-            colorAnimator.cancel();
-            if (isChecked) {
+            cancelColorAnimation();
+            if (checked) {
                 setIconViewChecked();
                 setTextViewChecked();
             } else {
@@ -453,41 +1074,150 @@ public class TMButton extends LinearLayout implements Checkable {
                 setTextViewUnchecked();
             }
         }
+    }
 
-        // Avoid infinite recursions if setChecked() is called from a listener
-        if (broadcasting) {
+    /**
+     * Snap to the given state when the view is bound to an item, e.g. from an adapter.
+     * Any animation left over from the previous item is dropped and the
+     * {@link OnCheckedChangeListener} is not notified.
+     *
+     * @param checked checked state of the bound item
+     */
+    public void bind(boolean checked) {
+        bind(checked, false);
+    }
+
+    /**
+     * Bind the given state, without notifying the {@link OnCheckedChangeListener}.
+     *
+     * @param checked       checked state of the bound item
+     * @param animateChange if true, animates from the current state, as for a "checked changed"
+     *                      payload. Otherwise snaps to the state, see {@link #bind(boolean)}.
+     */
+    public void bind(boolean checked, boolean animateChange) {
+        // A change made by the user on the previous item must not be lost
+        flushPendingCheckedChange();
+        state.setSettledChecked(checked);
+
+        if (animateChange) {
+            if (state.isChecked() != checked) {
+                applyChecked(checked, true);
+            }
             return;
         }
+        cancelAnimations();
+        applyChecked(checked, false);
+    }
 
-        broadcasting = true;
-        if (onCheckedChangeListener != null) {
-            onCheckedChangeListener.onCheckedChanged(this, isChecked);
+    /**
+     * <p>
+     * Bind the view to an item whose checked state is kept in the given store: the view snaps to
+     * the stored state, and every later change, e.g. a tap, is written back to the store.
+     * </p>
+     * <p>Binding the same store from every row of a list keeps the state of all items, including
+     * those scrolled away, without any per-item object.</p>
+     *
+     * @param store store of the checked states, or null to stop writing to it
+     * @param id    stable id of the bound item
+     */
+    public void bindToStore(@Nullable TMButtonStateStore store, long id) {
+        // The state of the new item must not be written under the id of the previous one
+        stateStore = null;
+        if (store != null) {
+            bind(store.isChecked(id));
         }
-        broadcasting = false;
+        stateStore = store;
+        stateStoreId = id;
     }
 
-    private void setIconViewChecked() {
-        iconView.setColorFilter(colorChecked);
+    /**
+     * Release the view from its item, e.g. when recycled. Stops any running animation.
+     */
+    public void unbind() {
+        stateStore = null;
+        flushPendingCheckedChange();
+        cancelAnimations();
+        if (state.isChecked()) {
+            setIconViewChecked();
+        } else {
+            setIconViewUnchecked();
+        }
+    }
 
-        if (isUncheckedDrawableAvailable()) {
-            iconView.setImageDrawable(checkedDrawable);
+    /**
+     * Stop all running animations. Cancelled animations do not apply their end state; callers
+     * apply the state they need afterwards.
+     */
+    private void cancelAnimations() {
+        stopFrameTracking();
+        cancelColorAnimation();
+        cancelShadowAnimation();
+        releaseAnimationSlot();
+        if (shadowIconView != null
+                && (shadowOverlayHost != null || shadowIconView.getVisibility() != View.GONE)) {
+            resetShadowView();
+        }
+        if (pressSpring != null) {
+            pressSpring.cancel();
         }
+        iconView.setScaleX(1.0f);
+        iconView.setScaleY(1.0f);
+        if (textSwitcher != null) {
+            textSwitcher.getCurrentView().clearAnimation();
+            textSwitcher.getNextView().clearAnimation();
+        }
+    }
+
+    private void setIconViewChecked() {
+        applyIconColor(1f);
     }
 
     private void setTextViewChecked() {
-        textSwitcher.setCurrentText(textChecked);
+        setCurrentText(true);
     }
 
     private void setIconViewUnchecked() {
-        iconView.setColorFilter(colorUnchecked);
+        applyIconColor(0f);
+    }
 
-        if (isUncheckedDrawableAvailable()) {
-            iconView.setImageDrawable(uncheckedDrawable);
+    private void setTextViewUnchecked() {
+        setCurrentText(false);
+    }
+
+    /**
+     * Skips {@link TextView#setText(CharSequence)} when the text is already shown, as it may
+     * request a new layout.
+     */
+    private void setCurrentText(boolean checked) {
+        if (stableLabel != null) {
+            stableLabel.setCheckedFraction(checked ? 1f : 0f);
+            return;
+        }
+        if (textSwitcher == null) {
+            return;
+        }
+        TextView currentView = (TextView) textSwitcher.getCurrentView();
+        if (!TextUtils.equals(currentView.getText(), checked ? textChecked : textUnchecked)) {
+            applyText(currentView, checked);
         }
     }
 
-    private void setTextViewUnchecked() {
-        textSwitcher.setCurrentText(textUnchecked);
+    /**
+     * Same as {@link TextSwitcher#setText(CharSequence)}, but using the precomputed text if any.
+     */
+    private void showNextText(boolean checked) {
+        ensureTextSwitcherAnimations();
+        applyText((TextView) textSwitcher.getNextView(), checked);
+        textSwitcher.showNext();
+    }
+
+    private void applyText(TextView textView, boolean checked) {
+        PrecomputedTextCompat precomputedText = checked ? precomputedTextChecked : precomputedTextUnchecked;
+        if (precomputedText != null) {
+            TextViewCompat.setPrecomputedText(textView, precomputedText);
+        } else {
+            textView.setText(checked ? textChecked : textUnchecked);
+        }
     }
 
     /**
@@ -500,7 +1230,7 @@ public class TMButton extends LinearLayout implements Checkable {
 
     @Override
     public boolean isChecked() {
-        return isChecked;
+        return state.isChecked();
     }
 
     /**
@@ -509,7 +1239,7 @@ public class TMButton extends LinearLayout implements Checkable {
      */
     @Override
     public void toggle() {
-        setChecked(!isChecked, true);
+        setChecked(!state.isChecked(), true);
     }
 
     /**
@@ -527,7 +1257,179 @@ public class TMButton extends LinearLayout implements Checkable {
     }
 
     public void setOnCheckedChangeListener(OnCheckedChangeListener onCheckedChangeListener) {
+        setOnCheckedChangeListener(onCheckedChangeListener, 0);
+    }
+
+    /**
+     * Register a listener receiving the frame timing of every TMButton animation, or null to
+     * stop tracking frames.
+     *
+     * @param metrics {@link TMButtonMetrics}
+     */
+    public static void setMetrics(@Nullable TMButtonMetrics metrics) {
+        TMButton.metrics = metrics;
+    }
+
+    @Nullable
+    static TMButtonMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * <p>
+     * Set a listener only notified of the settled state: each change restarts a quiet period of
+     * <code>debounceMs</code>, after which the listener is called once with the final state.
+     * Nothing is dispatched when the state ends where it started, e.g. after a double tap.
+     * </p>
+     * <p>Pending changes are delivered right away when the view is bound to another item or
+     * detached.</p>
+     *
+     * @param onCheckedChangeListener listener, or null to remove it
+     * @param debounceMs              quiet period in milliseconds, 0 to notify every change
+     */
+    public void setOnCheckedChangeListener(@Nullable OnCheckedChangeListener onCheckedChangeListener,
+                                           long debounceMs) {
+        removeCallbacks(debouncedCheckedChange);
+        this.state.setChangePending(false);
         this.onCheckedChangeListener = onCheckedChangeListener;
+        this.checkedChangeDebounceMs = debounceMs;
+        this.state.setSettledChecked(state.isChecked());
+    }
+
+    /**
+     * Add a listener notified of every change, in addition to the one set with
+     * {@link #setOnCheckedChangeListener(OnCheckedChangeListener)}.
+     */
+    public void addOnCheckedChangeListener(@NonNull OnCheckedChangeListener listener) {
+        if (onCheckedChangeListeners == null) {
+            onCheckedChangeListeners = new ArrayList<>(2);
+        }
+        onCheckedChangeListeners.add(listener);
+    }
+
+    public void removeOnCheckedChangeListener(@NonNull OnCheckedChangeListener listener) {
+        if (onCheckedChangeListeners != null) {
+            onCheckedChangeListeners.remove(listener);
+        }
+    }
+
+    private final Runnable debouncedCheckedChange = this::deliverSettledCheckedChange;
+
+    private void flushPendingCheckedChange() {
+        if (state.isChangePending()) {
+            removeCallbacks(debouncedCheckedChange);
+            deliverSettledCheckedChange();
+        }
+    }
+
+    private void deliverSettledCheckedChange() {
+        state.setChangePending(false);
+        if (onCheckedChangeListener == null || !state.settle()) {
+            return;
+        }
+
+        state.beginBroadcast();
+        onCheckedChangeListener.onCheckedChanged(this, state.isChecked());
+        state.endBroadcast();
+    }
+
+    @Override
+    public void requestLayout() {
+        super.requestLayout();
+        TMButtonStats.record(this, TMButtonStats.EVENT_REQUEST_LAYOUT);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        TMButtonStats.record(this, TMButtonStats.EVENT_LAYOUT);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        // Unlike draw(), also called when the layout has no background to draw
+        super.dispatchDraw(canvas);
+        TMButtonStats.record(this, TMButtonStats.EVENT_DRAW);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        flushPendingCheckedChange();
+        // Removes the shadow from the overlay of the window being left
+        cancelShadowAnimation();
+        // Frames are not drawn once detached: snap the color to the state instead
+        cancelColorAnimation();
+        applyIconColor(state.isChecked() ? 1f : 0f);
+        setCurrentText(state.isChecked());
+        releaseAnimationSlot();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        savedState.checked = state.isChecked();
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        if (stateStore == null) {
+            // Otherwise the store is the source of truth
+            bind(savedState.checked);
+        }
+    }
+
+    /**
+     * Children are created with the attributes of this view, hence with the same id: only this
+     * view saves its state, otherwise the children would overwrite it.
+     */
+    @Override
+    protected void dispatchSaveInstanceState(SparseArray<Parcelable> container) {
+        dispatchFreezeSelfOnly(container);
+    }
+
+    @Override
+    protected void dispatchRestoreInstanceState(SparseArray<Parcelable> container) {
+        dispatchThawSelfOnly(container);
+    }
+
+    static class SavedState extends BaseSavedState {
+
+        boolean checked;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            checked = in.readInt() != 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(checked ? 1 : 0);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
     }
 
 }
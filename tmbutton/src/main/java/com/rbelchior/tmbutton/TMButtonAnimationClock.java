@@ -0,0 +1,212 @@
+package com.rbelchior.tmbutton;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import com.rbelchior.tmbutton.core.TimelineSampler;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Drives every running {@link TMButton} animation of a thread from a single {@link Choreographer}
+ * frame callback.
+ * </p>
+ * <p>
+ * Running animations are kept in pooled parallel arrays of slots, one per target and channel,
+ * so buttons at rest hold no animator, and the cost of a frame only depends on the number of
+ * running animations. Each frame reports the linear fraction of every slot to its target, which
+ * applies its own interpolation.
+ * </p>
+ * <p>Must be used from a thread with a {@link android.os.Looper}, usually the UI thread.</p>
+ */
+final class TMButtonAnimationClock implements Choreographer.FrameCallback {
+
+    interface Target {
+        /**
+         * Called on each frame of a running animation, the last one with a fraction of 1.
+         *
+         * @param channel        channel of the animation, as passed to {@link #start(Target, int, long, float)}
+         * @param fraction       linear fraction of the duration elapsed, from 0 to 1
+         * @param frameTimeNanos time of the frame, see {@link Choreographer.FrameCallback#doFrame(long)}
+         */
+        void onAnimationFrame(int channel, float fraction, long frameTimeNanos);
+
+        /**
+         * Called after the last frame of an animation, unless it was cancelled.
+         */
+        void onAnimationEnd(int channel);
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final ThreadLocal<TMButtonAnimationClock> clocks = new ThreadLocal<>();
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+
+    private Target[] targets = new Target[INITIAL_CAPACITY];
+    private int[] channels = new int[INITIAL_CAPACITY];
+    /**
+     * Time of the first frame of each slot, or -1 until then.
+     */
+    private long[] startTimes = new long[INITIAL_CAPACITY];
+    private long[] durations = new long[INITIAL_CAPACITY];
+    private int size;
+
+    private boolean frameScheduled;
+    /**
+     * True while frames are dispatched: removed slots are only cleared, and compacted afterwards.
+     */
+    private boolean dispatching;
+
+    private TMButtonAnimationClock() {
+    }
+
+    /**
+     * Return the clock of the current thread.
+     */
+    @NonNull
+    static TMButtonAnimationClock get() {
+        TMButtonAnimationClock clock = clocks.get();
+        if (clock == null) {
+            clock = new TMButtonAnimationClock();
+            clocks.set(clock);
+        }
+        return clock;
+    }
+
+    /**
+     * Start an animation, restarting it if already running on the same target and channel.
+     *
+     * @param durationScale animator duration scale of the developer options, see
+     *                      {@link TMButtonAnimationGovernor#getDurationScale(android.content.Context)}
+     */
+    void start(@NonNull Target target, int channel, long durationMs, float durationScale) {
+        int index = indexOf(target, channel);
+        if (index < 0) {
+            ensureCapacity(size + 1);
+            index = size++;
+            targets[index] = target;
+            channels[index] = channel;
+        }
+        startTimes[index] = -1;
+        durations[index] = (long) (TimeUnit.MILLISECONDS.toNanos(durationMs) * durationScale);
+
+        if (!frameScheduled) {
+            frameScheduled = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Stop an animation without calling {@link Target#onAnimationEnd(int)}.
+     *
+     * @return true if the animation was running
+     */
+    boolean cancel(@NonNull Target target, int channel) {
+        int index = indexOf(target, channel);
+        if (index < 0) {
+            return false;
+        }
+        targets[index] = null;
+        if (!dispatching) {
+            compact();
+        }
+        return true;
+    }
+
+    boolean isRunning(@NonNull Target target, int channel) {
+        return indexOf(target, channel) >= 0;
+    }
+
+    /**
+     * Return the number of running animations.
+     */
+    int getRunningCount() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (targets[i] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        dispatching = true;
+        // Animations started by the callbacks get their first frame on the next vsync
+        int count = size;
+        for (int i = 0; i < count; i++) {
+            Target target = targets[i];
+            if (target == null) {
+                continue;
+            }
+            if (startTimes[i] < 0) {
+                startTimes[i] = frameTimeNanos;
+            }
+            long elapsed = frameTimeNanos - startTimes[i];
+            float fraction = TimelineSampler.fraction(elapsed, durations[i]);
+            int channel = channels[i];
+            if (fraction >= 1f) {
+                // Cleared first, so the target may start a new animation from its callbacks
+                targets[i] = null;
+            }
+            target.onAnimationFrame(channel, fraction, frameTimeNanos);
+            if (fraction >= 1f) {
+                target.onAnimationEnd(channel);
+            }
+        }
+        dispatching = false;
+        compact();
+
+        if (size > 0 && !frameScheduled) {
+            frameScheduled = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    private int indexOf(Target target, int channel) {
+        for (int i = 0; i < size; i++) {
+            if (targets[i] == target && channels[i] == channel) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void compact() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (targets[i] != null) {
+                if (count != i) {
+                    targets[count] = targets[i];
+                    channels[count] = channels[i];
+                    startTimes[count] = startTimes[i];
+                    durations[count] = durations[i];
+                    targets[i] = null;
+                }
+                count++;
+            }
+        }
+        size = count;
+        if (size == 0 && frameScheduled) {
+            frameScheduled = false;
+            choreographer.removeFrameCallback(this);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= targets.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, targets.length * 2);
+        targets = Arrays.copyOf(targets, newCapacity);
+        channels = Arrays.copyOf(channels, newCapacity);
+        startTimes = Arrays.copyOf(startTimes, newCapacity);
+        durations = Arrays.copyOf(durations, newCapacity);
+    }
+}
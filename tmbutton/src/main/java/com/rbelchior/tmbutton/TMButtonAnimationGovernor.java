@@ -0,0 +1,146 @@
+package com.rbelchior.tmbutton;
+
+import android.animation.ValueAnimator;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Rect;
+import android.os.Build;
+import android.provider.Settings;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.core.view.ViewCompat;
+
+/**
+ * <p>
+ * Process-wide budget for {@link TMButton} animations.
+ * </p>
+ * <p>
+ * An animated state change only animates when the button is attached and visible on screen,
+ * animators are enabled (see {@link ValueAnimator#areAnimatorsEnabled()} and the animator
+ * duration scale), and fewer than {@link #setMaxConcurrentAnimations(int) the maximum} TMButton
+ * animations are running. Otherwise the state is applied instantly, e.g. during a fast fling
+ * or a bulk update of many visible buttons.
+ * </p>
+ * <p>Must be used from the UI thread.</p>
+ */
+public final class TMButtonAnimationGovernor {
+
+    private static final int DEFAULT_MAX_CONCURRENT_ANIMATIONS = 8;
+
+    private static final Rect visibleRect = new Rect();
+
+    private static int maxConcurrentAnimations = DEFAULT_MAX_CONCURRENT_ANIMATIONS;
+    private static int runningAnimations;
+
+    private static long startedCount;
+    private static long skippedOverBudgetCount;
+    private static long skippedNotVisibleCount;
+    private static long skippedDisabledCount;
+
+    private TMButtonAnimationGovernor() {
+    }
+
+    /**
+     * Set the maximum number of TMButton animations running at the same time.
+     *
+     * @param max maximum number of animations, 0 to never animate
+     */
+    public static void setMaxConcurrentAnimations(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("max < 0: " + max);
+        }
+        maxConcurrentAnimations = max;
+    }
+
+    /**
+     * Return true if the view may start an animation, counting it as running until
+     * {@link #release()} is called.
+     */
+    static boolean tryAcquire(@NonNull View view) {
+        if (!areAnimatorsEnabled(view)) {
+            skippedDisabledCount++;
+            return false;
+        }
+        if (!ViewCompat.isAttachedToWindow(view) || !view.isShown() || !view.getGlobalVisibleRect(visibleRect)) {
+            skippedNotVisibleCount++;
+            return false;
+        }
+        if (runningAnimations >= maxConcurrentAnimations) {
+            skippedOverBudgetCount++;
+            return false;
+        }
+        runningAnimations++;
+        startedCount++;
+        return true;
+    }
+
+    static void release() {
+        if (runningAnimations > 0) {
+            runningAnimations--;
+        }
+    }
+
+    static boolean areAnimatorsEnabled(View view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return ValueAnimator.areAnimatorsEnabled();
+        }
+        return getDurationScale(view.getContext()) != 0f;
+    }
+
+    /**
+     * Return the animator duration scale of the developer options, applied to the animations of
+     * {@link TMButtonAnimationClock} as to those of {@link ValueAnimator}. Read from the global
+     * settings on every API level, as <code>ValueAnimator.getDurationScale()</code> is not public
+     * before API 33.
+     */
+    static float getDurationScale(@NonNull Context context) {
+        ContentResolver contentResolver = context.getContentResolver();
+        return Settings.Global.getFloat(contentResolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+    }
+
+    /**
+     * Return the number of TMButton animations running now.
+     */
+    public static int getRunningAnimations() {
+        return runningAnimations;
+    }
+
+    /**
+     * Return the number of animations started.
+     */
+    public static long getStartedCount() {
+        return startedCount;
+    }
+
+    /**
+     * Return the number of animations skipped because the maximum was reached.
+     */
+    public static long getSkippedOverBudgetCount() {
+        return skippedOverBudgetCount;
+    }
+
+    /**
+     * Return the number of animations skipped because the button was detached or off-screen.
+     */
+    public static long getSkippedNotVisibleCount() {
+        return skippedNotVisibleCount;
+    }
+
+    /**
+     * Return the number of animations skipped because animators are disabled.
+     */
+    public static long getSkippedDisabledCount() {
+        return skippedDisabledCount;
+    }
+
+    /**
+     * Reset the started and skipped counters.
+     */
+    public static void resetCounters() {
+        startedCount = 0;
+        skippedOverBudgetCount = 0;
+        skippedNotVisibleCount = 0;
+        skippedDisabledCount = 0;
+    }
+}
@@ -0,0 +1,212 @@
+package com.rbelchior.tmbutton;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * <p>
+ * Parsed XML attributes of a {@link TMButton}.
+ * </p>
+ * <p>
+ * Configs are cached process-wide, keyed by the TMButton attributes of the inflated tag and its
+ * style, so every row of a list sharing the same attributes skips attribute resolution and
+ * drawable loading after the first one. Drawables are kept as {@link Drawable.ConstantState}s.
+ * The cache is cleared whenever the resources configuration changes.
+ * </p>
+ */
+public final class TMButtonConfig {
+
+    private static final int MAX_CACHED_CONFIGS = 32;
+
+    private static final LruCache<String, TMButtonConfig> CACHE = new LruCache<>(MAX_CACHED_CONFIGS);
+    private static final Configuration CACHED_CONFIGURATION = new Configuration();
+
+    final int colorUnchecked;
+    final int colorChecked;
+    @Nullable
+    final String textChecked;
+    @Nullable
+    final String textUnchecked;
+    final int textAppearanceResId;
+    final int drawablePadding;
+    final boolean stableText;
+    final int checkedDrawableResId;
+    final int uncheckedDrawableResId;
+
+    @Nullable
+    private final Drawable.ConstantState checkedDrawableState;
+    @Nullable
+    private final Drawable.ConstantState uncheckedDrawableState;
+
+    /**
+     * Drawables without a {@link Drawable.ConstantState}, handed once to the inflating
+     * {@link TMButton}. Configs holding them are never cached.
+     */
+    @Nullable
+    private Drawable checkedDrawable;
+    @Nullable
+    private Drawable uncheckedDrawable;
+
+    /**
+     * Theme used to resolve the attributes, which are only reused with the same theme.
+     */
+    private final WeakReference<Resources.Theme> theme;
+
+    private TMButtonConfig(Context context, TypedArray attributes) {
+        colorUnchecked = attributes.getColor(R.styleable.TMButton_color_unchecked, Color.LTGRAY);
+        colorChecked = attributes.getColor(R.styleable.TMButton_color_checked, Color.MAGENTA);
+        textChecked = attributes.getString(R.styleable.TMButton_tmbutton_text_checked);
+        textUnchecked = attributes.getString(R.styleable.TMButton_tmbutton_text_unchecked);
+        textAppearanceResId = attributes.getResourceId(R.styleable.TMButton_tmbutton_text_appearance, -1);
+        drawablePadding = attributes.getDimensionPixelSize(R.styleable.TMButton_tmbutton_drawable_padding, 0);
+        stableText = attributes.getBoolean(R.styleable.TMButton_tmbutton_stable_text, false);
+
+        if (!attributes.hasValue(R.styleable.TMButton_icon_drawable)) {
+            throw new IllegalArgumentException("Missing attribute: icon_drawable");
+        }
+        checkedDrawableResId = attributes.getResourceId(R.styleable.TMButton_icon_drawable, 0);
+        checkedDrawable = getDrawable(context, attributes, R.styleable.TMButton_icon_drawable);
+        checkedDrawableState = checkedDrawable == null ? null : checkedDrawable.getConstantState();
+
+        // this attr is optional
+        if (attributes.hasValue(R.styleable.TMButton_unchecked_drawable)) {
+            uncheckedDrawableResId = attributes.getResourceId(R.styleable.TMButton_unchecked_drawable, 0);
+            uncheckedDrawable = getDrawable(context, attributes, R.styleable.TMButton_unchecked_drawable);
+            uncheckedDrawableState = uncheckedDrawable == null ? null : uncheckedDrawable.getConstantState();
+        } else {
+            uncheckedDrawableResId = 0;
+            uncheckedDrawable = null;
+            uncheckedDrawableState = null;
+        }
+
+        if (isShareable()) {
+            checkedDrawable = null;
+            uncheckedDrawable = null;
+        }
+        theme = new WeakReference<>(context.getTheme());
+    }
+
+    @Nullable
+    private static Drawable getDrawable(Context context, TypedArray attributes, int index) {
+        int iconResId = attributes.getResourceId(index, 0);
+        if (iconResId != 0) {
+            // Shares the state of the resource with configs of other tags using it
+            return DrawableCache.get(context, iconResId);
+        }
+        // Not a resource, e.g. a color
+        return attributes.getDrawable(index);
+    }
+
+    /**
+     * Return the config of the given attributes, parsing them only if no equivalent config
+     * was cached.
+     */
+    @NonNull
+    static TMButtonConfig obtain(@NonNull Context context, @NonNull AttributeSet attrs) {
+        String key = buildKey(attrs);
+        synchronized (CACHE) {
+            Configuration configuration = context.getResources().getConfiguration();
+            if (CACHED_CONFIGURATION.diff(configuration) != 0) {
+                CACHE.evictAll();
+                CACHED_CONFIGURATION.setTo(configuration);
+            }
+            TMButtonConfig config = CACHE.get(key);
+            if (config != null && config.theme.get() == context.getTheme()) {
+                return config;
+            }
+        }
+
+        TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.TMButton);
+        TMButtonConfig config;
+        try {
+            config = new TMButtonConfig(context, attributes);
+        } finally {
+            attributes.recycle();
+        }
+
+        if (config.isShareable()) {
+            synchronized (CACHE) {
+                CACHE.put(key, config);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Drop every cached config, so the next buttons inflated resolve their attributes again,
+     * e.g. to measure inflation without the cache.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.evictAll();
+        }
+    }
+
+    /**
+     * Build a key from the style and the TMButton attributes of the tag. Values are the raw
+     * XML values (e.g. "@2131165290"), so equal tags share a key without resolving anything.
+     */
+    @NonNull
+    private static String buildKey(@NonNull AttributeSet attrs) {
+        StringBuilder key = new StringBuilder(64);
+        key.append(attrs.getStyleAttribute());
+        for (int i = 0; i < attrs.getAttributeCount(); i++) {
+            int nameResource = attrs.getAttributeNameResource(i);
+            if (isTMButtonAttribute(nameResource)) {
+                key.append('|').append(nameResource).append('=').append(attrs.getAttributeValue(i));
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isTMButtonAttribute(int nameResource) {
+        for (int attr : R.styleable.TMButton) {
+            if (attr == nameResource) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isShareable() {
+        return checkedDrawableState != null
+                && (uncheckedDrawableResId == 0 || uncheckedDrawableState != null);
+    }
+
+    /**
+     * Return a new instance of the checked drawable, sharing its state with other buttons.
+     */
+    @Nullable
+    Drawable newCheckedDrawable(@NonNull Context context) {
+        if (checkedDrawableState == null) {
+            Drawable drawable = checkedDrawable;
+            checkedDrawable = null;
+            return drawable;
+        }
+        return DrawableCache.newDrawable(context, checkedDrawableState);
+    }
+
+    /**
+     * Return a new instance of the optional unchecked drawable, sharing its state with other buttons.
+     */
+    @Nullable
+    Drawable newUncheckedDrawable(@NonNull Context context) {
+        if (uncheckedDrawableState == null) {
+            Drawable drawable = uncheckedDrawable;
+            uncheckedDrawable = null;
+            return drawable;
+        }
+        return DrawableCache.newDrawable(context, uncheckedDrawableState);
+    }
+}
@@ -0,0 +1,255 @@
+package com.rbelchior.tmbutton;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Controls the checked state of a group of {@link TMButton}s.
+ * </p>
+ * <p>
+ * State changes requested with {@link #setChecked(TMButton, boolean, boolean)} are batched:
+ * they are all applied on the next frame, and reported with a single call to the
+ * {@link OnGroupCheckedChangeListener}, instead of one invalidation and one listener call per
+ * button. Changes made by the user tapping a member are reported in the same way.
+ * </p>
+ * <p>
+ * In single choice mode, checking a member unchecks the previously checked one, which is
+ * tracked directly instead of scanning the members. Members are only scanned once, when the
+ * mode is enabled, to keep the first checked one. Every change of a member goes through the
+ * group before its listeners are notified, including {@link TMButton#bind(boolean, boolean)}
+ * and changes made from a listener, so no two members are ever reported checked.
+ * </p>
+ * <p>Must be used from the UI thread.</p>
+ */
+public class TMButtonGroup {
+
+    static final int FLAG_PENDING = 1;
+    static final int FLAG_PENDING_CHECKED = 1 << 1;
+    static final int FLAG_PENDING_ANIMATE = 1 << 2;
+    static final int FLAG_CHANGED = 1 << 3;
+
+    private final ArrayList<TMButton> members = new ArrayList<>();
+    private final ArrayList<TMButton> pendingButtons = new ArrayList<>();
+    private ArrayList<TMButton> changedButtons = new ArrayList<>();
+    private ArrayList<TMButton> dispatchedButtons = new ArrayList<>();
+
+    private boolean singleChoice;
+    @Nullable
+    private TMButton checkedButton;
+
+    private boolean frameScheduled;
+
+    @Nullable
+    private OnGroupCheckedChangeListener onGroupCheckedChangeListener;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> {
+        frameScheduled = false;
+        applyPendingChanges();
+    };
+
+    /**
+     * Add a button to the group. A button belongs to one group at most.
+     */
+    public void add(@NonNull TMButton button) {
+        if (button.group == this) {
+            return;
+        }
+        if (button.group != null) {
+            button.group.remove(button);
+        }
+        button.group = this;
+        button.groupFlags = 0;
+        members.add(button);
+
+        if (singleChoice && button.isChecked()) {
+            if (checkedButton != null) {
+                setChecked(checkedButton, false, false);
+            }
+            checkedButton = button;
+        }
+    }
+
+    /**
+     * Remove a button from the group, dropping its pending changes.
+     */
+    public void remove(@NonNull TMButton button) {
+        if (button.group != this) {
+            return;
+        }
+        if ((button.groupFlags & FLAG_PENDING) != 0) {
+            pendingButtons.remove(button);
+        }
+        if ((button.groupFlags & FLAG_CHANGED) != 0) {
+            changedButtons.remove(button);
+        }
+        members.remove(button);
+        button.group = null;
+        button.groupFlags = 0;
+        if (checkedButton == button) {
+            checkedButton = null;
+        }
+    }
+
+    /**
+     * Request a state change, applied on the next frame together with the other pending ones.
+     * A later request for the same button replaces the earlier one.
+     *
+     * @param button        member of this group
+     * @param checked       new checked state
+     * @param animateChange if true, animates the state change
+     */
+    public void setChecked(@NonNull TMButton button, boolean checked, boolean animateChange) {
+        if (button.group != this) {
+            throw new IllegalArgumentException("Button is not a member of this group");
+        }
+        if ((button.groupFlags & FLAG_PENDING) == 0) {
+            pendingButtons.add(button);
+        }
+        int flags = (button.groupFlags & FLAG_CHANGED) | FLAG_PENDING;
+        if (checked) {
+            flags |= FLAG_PENDING_CHECKED;
+        }
+        if (animateChange) {
+            flags |= FLAG_PENDING_ANIMATE;
+        }
+        button.groupFlags = flags;
+        scheduleFrame();
+    }
+
+    /**
+     * Enable single choice mode: at most one member is checked at a time. Members already
+     * checked when enabling it, except the first one added, are unchecked on the next frame.
+     */
+    public void setSingleChoice(boolean singleChoice) {
+        if (this.singleChoice == singleChoice) {
+            return;
+        }
+        this.singleChoice = singleChoice;
+        checkedButton = null;
+        if (!singleChoice) {
+            return;
+        }
+        for (int i = 0; i < members.size(); i++) {
+            TMButton button = members.get(i);
+            if (!button.isChecked()) {
+                continue;
+            }
+            if (checkedButton == null) {
+                checkedButton = button;
+            } else {
+                setChecked(button, false, false);
+            }
+        }
+    }
+
+    /**
+     * Return the checked member in single choice mode, or null.
+     */
+    @Nullable
+    public TMButton getCheckedButton() {
+        return checkedButton;
+    }
+
+    public void setOnGroupCheckedChangeListener(@Nullable OnGroupCheckedChangeListener listener) {
+        this.onGroupCheckedChangeListener = listener;
+    }
+
+    /**
+     * Called by a member as soon as its state changed, before its listeners are notified. In single
+     * choice mode, the previously checked member is unchecked right away.
+     *
+     * @param animateChange if true, the previous member animates its uncheck
+     */
+    void onButtonCheckedChanged(@NonNull TMButton button, boolean animateChange) {
+        markChanged(button);
+        scheduleFrame();
+        if (!singleChoice) {
+            return;
+        }
+        if (!button.isChecked()) {
+            if (checkedButton == button) {
+                checkedButton = null;
+            }
+            return;
+        }
+        TMButton previous = checkedButton;
+        // Set first, the uncheck of the previous member comes back here
+        checkedButton = button;
+        if (previous != null && previous != button) {
+            // Replaces any change still pending for it
+            previous.groupFlags &= ~(FLAG_PENDING_CHECKED | FLAG_PENDING_ANIMATE);
+            previous.bind(false, animateChange);
+        }
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    private void applyPendingChanges() {
+        // Unchecking the previous member in single choice mode also replaces its pending change
+        for (int i = 0; i < pendingButtons.size(); i++) {
+            TMButton button = pendingButtons.get(i);
+            int flags = button.groupFlags;
+            button.groupFlags = flags & FLAG_CHANGED;
+
+            boolean checked = (flags & FLAG_PENDING_CHECKED) != 0;
+            if (button.isChecked() != checked) {
+                // Reported back through onButtonCheckedChanged()
+                button.bind(checked, (flags & FLAG_PENDING_ANIMATE) != 0);
+            }
+        }
+        pendingButtons.clear();
+        if (frameScheduled) {
+            // Only the changes queued while applying were left, they are already applied above
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
+
+        if (changedButtons.isEmpty()) {
+            return;
+        }
+        // Swap lists, the listener may change members again
+        ArrayList<TMButton> buttons = changedButtons;
+        changedButtons = dispatchedButtons;
+        dispatchedButtons = buttons;
+
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.get(i).groupFlags &= ~FLAG_CHANGED;
+        }
+        if (onGroupCheckedChangeListener != null) {
+            onGroupCheckedChangeListener.onCheckedChanged(this, buttons);
+        }
+        buttons.clear();
+    }
+
+    private void markChanged(TMButton button) {
+        if ((button.groupFlags & FLAG_CHANGED) == 0) {
+            button.groupFlags |= FLAG_CHANGED;
+            changedButtons.add(button);
+        }
+    }
+
+    /**
+     * Interface definition for a callback to be invoked once per frame, when the checked state
+     * of some members of a {@link TMButtonGroup} changed.
+     */
+    public interface OnGroupCheckedChangeListener {
+        /**
+         * Called when the checked state of some members has changed.
+         *
+         * @param group          The group whose members changed.
+         * @param changedButtons The members whose state changed, only valid during this call.
+         */
+        void onCheckedChanged(@NonNull TMButtonGroup group, @NonNull List<TMButton> changedButtons);
+    }
+}
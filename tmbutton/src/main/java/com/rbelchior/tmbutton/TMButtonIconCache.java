@@ -0,0 +1,135 @@
+package com.rbelchior.tmbutton;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>
+ * Opt-in, memory-capped cache of rasterized icons, shared by every {@link TMButton}.
+ * </p>
+ * <p>
+ * When enabled, the shadow burst draws a bitmap sprite of the icon instead of the icon drawable
+ * itself, so vector paths are rendered once per resource and size instead of once per button.
+ * Sprites are keyed by drawable resource and pixel size; they are rasterized untinted, the
+ * color of each button and state being applied when drawing.
+ * </p>
+ * <p>The cache is trimmed when the system asks the application to release memory.</p>
+ */
+public final class TMButtonIconCache {
+
+    private static final int MAX_SIZE = 0x7fff;
+
+    @Nullable
+    private static LruCache<Long, Bitmap> cache;
+    @Nullable
+    private static Context registeredContext;
+
+    private static final ComponentCallbacks2 trimMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            TMButtonIconCache.onTrimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            TMButtonIconCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+    };
+
+    private TMButtonIconCache() {
+    }
+
+    /**
+     * Enable the cache, or resize it if already enabled.
+     *
+     * @param context  any context, used to listen to memory trim events
+     * @param maxBytes maximum size of the cached bitmaps, in bytes
+     */
+    public static synchronized void enable(@NonNull Context context, int maxBytes) {
+        if (cache != null) {
+            cache.resize(maxBytes);
+            return;
+        }
+        cache = new LruCache<Long, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+        registeredContext = context.getApplicationContext();
+        registeredContext.registerComponentCallbacks(trimMemoryCallbacks);
+    }
+
+    /**
+     * Disable the cache and release its bitmaps.
+     */
+    public static synchronized void disable() {
+        if (cache == null) {
+            return;
+        }
+        cache.evictAll();
+        cache = null;
+        registeredContext.unregisterComponentCallbacks(trimMemoryCallbacks);
+        registeredContext = null;
+    }
+
+    public static synchronized boolean isEnabled() {
+        return cache != null;
+    }
+
+    private static synchronized void onTrimMemory(int level) {
+        if (cache == null) {
+            return;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            cache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            cache.trimToSize(cache.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Return the sprite of the given drawable at the given size, rasterizing it on a cache miss.
+     * Return null when the cache is disabled or the size is not supported.
+     *
+     * @param context context used to load the drawable on a cache miss
+     * @param resId   drawable resource
+     * @param width   width of the sprite, in pixels
+     * @param height  height of the sprite, in pixels
+     */
+    @Nullable
+    static synchronized Bitmap obtain(@NonNull Context context, @DrawableRes int resId, int width, int height) {
+        if (cache == null || resId == 0 || width <= 0 || height <= 0 || width > MAX_SIZE || height > MAX_SIZE) {
+            return null;
+        }
+        Long key = ((long) resId << 32) | ((long) width << 16) | height;
+        Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+            // New instance, since the drawable of the icon view carries its color filter
+            Drawable drawable = DrawableCache.get(context, resId);
+            if (drawable == null) {
+                return null;
+            }
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            drawable.setBounds(0, 0, width, height);
+            drawable.draw(new Canvas(bitmap));
+            cache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+}
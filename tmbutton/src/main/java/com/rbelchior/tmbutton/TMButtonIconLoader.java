@@ -0,0 +1,27 @@
+package com.rbelchior.tmbutton;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>
+ * Loads icons by key for {@link TMButton#setIconAsync(TMButtonIconPrefetcher, Object, Drawable)},
+ * e.g. by decoding a file or a downloaded image.
+ * </p>
+ * <p>Register it with a {@link TMButtonIconPrefetcher}, which calls it on its executor.</p>
+ */
+public interface TMButtonIconLoader {
+
+    /**
+     * Called on a background thread to load the icon of the given key.
+     *
+     * @param key key of the icon, as passed to {@link TMButton#setIconAsync(TMButtonIconPrefetcher, Object, Drawable)}
+     *            or {@link TMButtonIconPrefetcher#prefetch(Object)}.
+     * @return the icon, or null if it could not be loaded. Icons with a
+     * {@link Drawable.ConstantState} are cached and shared by all buttons showing them.
+     */
+    @Nullable
+    Drawable load(@NonNull Object key);
+}
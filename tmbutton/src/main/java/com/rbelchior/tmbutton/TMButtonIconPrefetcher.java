@@ -0,0 +1,140 @@
+package com.rbelchior.tmbutton;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * Loads icons off the UI thread with a {@link TMButtonIconLoader}, for
+ * {@link TMButton#setIconAsync(TMButtonIconPrefetcher, Object, Drawable)}.
+ * </p>
+ * <p>
+ * Loaded icons are kept as {@link Drawable.ConstantState}s in a bounded cache, so buttons showing
+ * the same icon share it. Adapters can call {@link #prefetch(Object)} for the positions about to
+ * be bound, so their icons are usually ready by the time the rows are shown.
+ * </p>
+ * <p>Must be used from the UI thread.</p>
+ */
+public class TMButtonIconPrefetcher {
+
+    private final Context context;
+    private final TMButtonIconLoader loader;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final LruCache<Object, Drawable.ConstantState> cache;
+
+    /**
+     * Listeners of the loads in progress, by key. Prefetches have no listener.
+     */
+    private final HashMap<Object, ArrayList<OnIconLoadedListener>> pendingLoads = new HashMap<>();
+
+    /**
+     * @param context        context used to create the cached drawables
+     * @param loader         loader of the icons, called on the executor
+     * @param executor       executor running the loads
+     * @param maxCachedIcons maximum number of icons kept in the cache
+     */
+    public TMButtonIconPrefetcher(@NonNull Context context, @NonNull TMButtonIconLoader loader,
+                                  @NonNull Executor executor, int maxCachedIcons) {
+        this.context = context.getApplicationContext();
+        this.loader = loader;
+        this.executor = executor;
+        this.cache = new LruCache<>(maxCachedIcons);
+    }
+
+    /**
+     * Start loading the icon of the given key, unless it is cached or already loading.
+     */
+    public void prefetch(@NonNull Object key) {
+        if (cache.get(key) == null) {
+            startLoad(key);
+        }
+    }
+
+    /**
+     * Drop all cached icons.
+     */
+    public void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * Return a new drawable of the cached icon of the given key, or null if not cached.
+     */
+    @Nullable
+    Drawable getCached(@NonNull Object key) {
+        Drawable.ConstantState state = cache.get(key);
+        return state == null ? null : DrawableCache.newDrawable(context, state);
+    }
+
+    /**
+     * Load the icon of the given key, notifying the listener on the UI thread once loaded.
+     */
+    void load(@NonNull Object key, @NonNull OnIconLoadedListener listener) {
+        startLoad(key).add(listener);
+    }
+
+    @NonNull
+    private ArrayList<OnIconLoadedListener> startLoad(@NonNull Object key) {
+        ArrayList<OnIconLoadedListener> listeners = pendingLoads.get(key);
+        if (listeners == null) {
+            listeners = new ArrayList<>(1);
+            pendingLoads.put(key, listeners);
+            executor.execute(() -> loadInBackground(key));
+        }
+        return listeners;
+    }
+
+    private void loadInBackground(@NonNull Object key) {
+        Drawable drawable = null;
+        try {
+            drawable = loader.load(key);
+        } finally {
+            // Also posted when the loader throws, so the key is no longer pending and can be loaded again
+            postIconLoaded(key, drawable);
+        }
+    }
+
+    private void postIconLoaded(@NonNull Object key, @Nullable Drawable drawable) {
+        mainHandler.post(() -> onIconLoaded(key, drawable));
+    }
+
+    private void onIconLoaded(@NonNull Object key, @Nullable Drawable drawable) {
+        ArrayList<OnIconLoadedListener> listeners = pendingLoads.remove(key);
+        if (drawable == null) {
+            return;
+        }
+        Drawable.ConstantState state = drawable.getConstantState();
+        if (state != null) {
+            cache.put(key, state);
+        }
+        if (listeners == null || listeners.isEmpty()) {
+            return;
+        }
+        if (state == null) {
+            // A drawable can only be shown by one view, the other listeners keep their placeholder
+            listeners.get(0).onIconLoaded(key, drawable);
+            return;
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            // The loaded instance goes to the first listener, the others get their own
+            Drawable icon = i == 0 ? drawable : DrawableCache.newDrawable(context, state);
+            listeners.get(i).onIconLoaded(key, icon);
+        }
+    }
+
+    interface OnIconLoadedListener {
+        void onIconLoaded(@NonNull Object key, @NonNull Drawable drawable);
+    }
+}
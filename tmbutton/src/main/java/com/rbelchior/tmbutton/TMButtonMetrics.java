@@ -0,0 +1,39 @@
+package com.rbelchior.tmbutton;
+
+import androidx.annotation.NonNull;
+
+/**
+ * <p>
+ * Receives frame timing of {@link TMButton} animations, e.g. to report jank from production.
+ * Register it with {@link TMButton#setMetrics(TMButtonMetrics)}; frames are only tracked while
+ * a listener is registered.
+ * </p>
+ * <p>Frames are observed through {@link android.view.Choreographer} frame callbacks, from the
+ * start of the animation until its end or cancellation.</p>
+ */
+public interface TMButtonMetrics {
+
+    /**
+     * The check animation: color change and shadow burst.
+     */
+    int ANIMATION_CHECK = 0;
+
+    /**
+     * The uncheck animation: color change.
+     */
+    int ANIMATION_UNCHECK = 1;
+
+    /**
+     * Called on the UI thread when an animation ended or was cancelled.
+     *
+     * @param button            The animated view.
+     * @param animation         {@link #ANIMATION_CHECK} or {@link #ANIMATION_UNCHECK}.
+     * @param startLatencyNanos Time from the touch up event to the first animation frame, or -1
+     *                          when the animation was not started by a touch.
+     * @param frameCount        Number of frames drawn during the animation.
+     * @param worstFrameNanos   Longest interval between two consecutive frames.
+     * @param droppedFrames     Number of missed vsync intervals, estimated from the display refresh rate.
+     */
+    void onAnimationFinished(@NonNull TMButton button, int animation, long startLatencyNanos,
+                             int frameCount, long worstFrameNanos, int droppedFrames);
+}
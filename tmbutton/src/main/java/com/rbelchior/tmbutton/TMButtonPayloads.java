@@ -0,0 +1,66 @@
+package com.rbelchior.tmbutton;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Helpers to update a {@link TMButton} inside a {@link RecyclerView} through payloads, so a change
+ * of the checked state animates the affected holder only, without a full rebind.
+ * </p>
+ * <pre>
+ * // when the state of an item changes
+ * TMButtonPayloads.notifyCheckedChanged(adapter, position);
+ *
+ * // in the adapter
+ * public void onBindViewHolder(ViewHolder holder, int position, List&lt;Object&gt; payloads) {
+ *     if (!TMButtonPayloads.onBindPayloads(holder.tmButton, payloads, isChecked(position))) {
+ *         onBindViewHolder(holder, position);
+ *     }
+ * }
+ * </pre>
+ * <p>With a non-empty payload, the default item animator reuses the same holder, so no
+ * change animation runs on top of the button's own.</p>
+ */
+public final class TMButtonPayloads {
+
+    /**
+     * Payload sent when only the checked state of an item changed.
+     */
+    public static final Object PAYLOAD_CHECKED_CHANGED = new Object();
+
+    private TMButtonPayloads() {
+    }
+
+    /**
+     * Notify the adapter that only the checked state of the item at the given position changed.
+     */
+    public static void notifyCheckedChanged(@NonNull RecyclerView.Adapter<?> adapter, int position) {
+        adapter.notifyItemChanged(position, PAYLOAD_CHECKED_CHANGED);
+    }
+
+    /**
+     * Handle the payloads of a partial bind. When they only contain
+     * {@link #PAYLOAD_CHECKED_CHANGED}, the button animates to the given state without notifying
+     * its listener.
+     *
+     * @param button   button of the bound holder
+     * @param payloads payloads given to {@link RecyclerView.Adapter#onBindViewHolder(RecyclerView.ViewHolder, int, List)}
+     * @param checked  checked state of the bound item
+     * @return true if the payloads were handled, false if a full bind is needed
+     */
+    public static boolean onBindPayloads(@NonNull TMButton button, @NonNull List<Object> payloads, boolean checked) {
+        if (payloads.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < payloads.size(); i++) {
+            if (payloads.get(i) != PAYLOAD_CHECKED_CHANGED) {
+                return false;
+            }
+        }
+        button.bind(checked, true);
+        return true;
+    }
+}
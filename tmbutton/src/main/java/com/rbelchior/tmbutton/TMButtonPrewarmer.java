@@ -0,0 +1,261 @@
+package com.rbelchior.tmbutton;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import androidx.annotation.LayoutRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+
+/**
+ * <p>
+ * Builds buttons or list rows ahead of time, while the UI thread is idle, so the first fling
+ * through a list does not pay for their construction: view creation, attribute parsing and
+ * drawable loading.
+ * </p>
+ * <p>
+ * Views are built in small batches from a {@link MessageQueue.IdleHandler}, each batch stopping
+ * once its time slice is used, so a frame is never delayed by more than one view. Built views
+ * either wait in a simple pool, see {@link #acquire()}, or are put as view holders in the
+ * {@link RecyclerView.RecycledViewPool} of a list.
+ * </p>
+ * <p>
+ * A view counts as consumed once attached to a window. The views built but never shown are
+ * reported as wasted, to tune the number of views to prewarm.
+ * </p>
+ * <p>Must be used from the UI thread.</p>
+ */
+public class TMButtonPrewarmer {
+
+    /**
+     * Creates the views of a {@link TMButtonPrewarmer} with a simple pool, e.g. inflates a row.
+     */
+    public interface ViewFactory {
+        @NonNull
+        View createView();
+    }
+
+    private static final long DEFAULT_TIME_SLICE_MS = 4;
+
+    private final int count;
+
+    @Nullable
+    private final ViewFactory viewFactory;
+    private final ArrayList<View> pool = new ArrayList<>();
+
+    @Nullable
+    private final RecyclerView recyclerView;
+    private final int viewType;
+
+    private long timeSliceMs = DEFAULT_TIME_SLICE_MS;
+    private boolean started;
+
+    private int createdCount;
+    private int consumedCount;
+    /**
+     * Views dropped because the recycled view pool was full.
+     */
+    private int rejectedCount;
+
+    /**
+     * Prewarm views inflated from a layout, e.g. a row holding a {@link TMButton}, handed out by
+     * {@link #acquire()}. Inflating parses the attributes of the buttons, so their icons and
+     * colors are ready, unlike buttons built in code.
+     *
+     * @param context   context of the views, usually the activity
+     * @param layoutRes layout of the views, inflated without a parent
+     * @param count     number of views to build
+     */
+    @SuppressLint("InflateParams")
+    @NonNull
+    public static TMButtonPrewarmer forLayout(@NonNull Context context, @LayoutRes int layoutRes, int count) {
+        LayoutInflater inflater = LayoutInflater.from(context);
+        return new TMButtonPrewarmer(() -> inflater.inflate(layoutRes, null, false), count);
+    }
+
+    /**
+     * Prewarm views of the given factory, handed out by {@link #acquire()}.
+     *
+     * @param viewFactory factory of the views
+     * @param count       number of views to build
+     */
+    public TMButtonPrewarmer(@NonNull ViewFactory viewFactory, int count) {
+        this.viewFactory = viewFactory;
+        this.recyclerView = null;
+        this.viewType = 0;
+        this.count = count;
+    }
+
+    /**
+     * <p>
+     * Prewarm rows of a list: view holders are created by the adapter of the list and put in its
+     * {@link RecyclerView.RecycledViewPool}, where the list picks them up when it needs new rows.
+     * </p>
+     * <p>The pool keeps 5 views per type by default: raise it with
+     * {@link RecyclerView.RecycledViewPool#setMaxRecycledViews(int, int)} first. Prewarming stops
+     * once the pool is full.</p>
+     *
+     * @param recyclerView list whose adapter creates the rows
+     * @param viewType     view type of the rows
+     * @param count        number of rows to build
+     */
+    public TMButtonPrewarmer(@NonNull RecyclerView recyclerView, int viewType, int count) {
+        this.viewFactory = null;
+        this.recyclerView = recyclerView;
+        this.viewType = viewType;
+        this.count = count;
+    }
+
+    /**
+     * Set the time a batch may take before yielding to the next messages, 4ms by default.
+     * A batch always builds at least one view.
+     */
+    public void setTimeSliceMs(long timeSliceMs) {
+        this.timeSliceMs = timeSliceMs;
+    }
+
+    /**
+     * Start building views whenever the UI thread is idle, until the requested number is built.
+     */
+    public void start() {
+        if (started || createdCount >= count) {
+            return;
+        }
+        started = true;
+        Looper.myQueue().addIdleHandler(idleHandler);
+    }
+
+    /**
+     * Stop building views. Views already built stay available.
+     */
+    public void stop() {
+        if (started) {
+            started = false;
+            Looper.myQueue().removeIdleHandler(idleHandler);
+        }
+    }
+
+    /**
+     * Return a prewarmed view, or null if none is left. Only for prewarmers with a simple pool.
+     */
+    @Nullable
+    public View acquire() {
+        if (viewFactory == null) {
+            throw new IllegalStateException("Rows are handed to the recycled view pool of the list");
+        }
+        return pool.isEmpty() ? null : pool.remove(pool.size() - 1);
+    }
+
+    /**
+     * Drop the views of the simple pool, e.g. when the screen is left. They count as wasted.
+     */
+    public void clear() {
+        stop();
+        pool.clear();
+    }
+
+    /**
+     * Return the number of views built so far.
+     */
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * Return the number of built views that were attached to a window.
+     */
+    public int getConsumedCount() {
+        return consumedCount;
+    }
+
+    /**
+     * Return the number of built views not attached to a window so far, including those dropped
+     * by a full recycled view pool.
+     */
+    public int getWastedCount() {
+        return createdCount - consumedCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "TMButtonPrewarmer{created=" + createdCount
+                + ", consumed=" + consumedCount
+                + ", wasted=" + getWastedCount()
+                + ", rejected=" + rejectedCount + "}";
+    }
+
+    private final MessageQueue.IdleHandler idleHandler = () -> {
+        if (!started) {
+            return false;
+        }
+        long deadline = SystemClock.uptimeMillis() + timeSliceMs;
+        do {
+            if (!createNext()) {
+                started = false;
+                return false;
+            }
+        } while (createdCount < count && SystemClock.uptimeMillis() < deadline);
+
+        started = createdCount < count;
+        // Keeps the handler for the next idle time
+        return started;
+    };
+
+    /**
+     * Build one view and hand it to its pool.
+     *
+     * @return false if no more view can be built
+     */
+    private boolean createNext() {
+        if (viewFactory != null) {
+            View view = viewFactory.createView();
+            onViewCreated(view);
+            pool.add(view);
+            return true;
+        }
+        RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        if (adapter == null) {
+            return false;
+        }
+        RecyclerView.RecycledViewPool recycledViewPool = recyclerView.getRecycledViewPool();
+        int pooledCount = recycledViewPool.getRecycledViewCount(viewType);
+        // Sets the view type of the holder, unlike its constructor
+        RecyclerView.ViewHolder holder = adapter.createViewHolder(recyclerView, viewType);
+        onViewCreated(holder.itemView);
+        recycledViewPool.putRecycledView(holder);
+        if (recycledViewPool.getRecycledViewCount(viewType) == pooledCount) {
+            rejectedCount++;
+            return false;
+        }
+        return true;
+    }
+
+    private void onViewCreated(@NonNull View view) {
+        createdCount++;
+        view.addOnAttachStateChangeListener(consumptionListener);
+    }
+
+    /**
+     * Counts each built view once, on its first attach.
+     */
+    private final View.OnAttachStateChangeListener consumptionListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View view) {
+            consumedCount++;
+            view.removeOnAttachStateChangeListener(this);
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View view) {
+        }
+    };
+}
@@ -0,0 +1,222 @@
+package com.rbelchior.tmbutton;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>
+ * Checked state of many items, keyed by item id, for {@link TMButton#bindToStore(TMButtonStateStore, long)}.
+ * </p>
+ * <p>
+ * Only the ids of checked items are kept, in an open-addressing set of primitive longs, so
+ * lists of hundreds of thousands of items need no boxed map. The store can be saved to and
+ * loaded from a memory-mapped file, so the state survives process death without going through
+ * a large {@link android.os.Bundle}.
+ * </p>
+ * <p>Not thread safe.</p>
+ */
+public class TMButtonStateStore {
+
+    private static final int FILE_MAGIC = 0x544d4253; // "TMBS"
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 12;
+
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * Marks a free slot. The id 0 itself is tracked by {@link #containsZero}.
+     */
+    private static final long FREE = 0;
+
+    private long[] ids;
+    private boolean containsZero;
+    private int size;
+
+    public TMButtonStateStore() {
+        ids = new long[MIN_CAPACITY];
+    }
+
+    /**
+     * Return true if the item with the given id is checked.
+     */
+    public boolean isChecked(long id) {
+        if (id == FREE) {
+            return containsZero;
+        }
+        return ids[indexOf(id)] == id;
+    }
+
+    /**
+     * Set the checked state of the item with the given id.
+     */
+    public void setChecked(long id, boolean checked) {
+        if (checked) {
+            add(id);
+        } else {
+            remove(id);
+        }
+    }
+
+    /**
+     * Return the number of checked items.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Uncheck every item.
+     */
+    public void clear() {
+        ids = new long[MIN_CAPACITY];
+        containsZero = false;
+        size = 0;
+    }
+
+    private void add(long id) {
+        if (id == FREE) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            return;
+        }
+        int index = indexOf(id);
+        if (ids[index] == id) {
+            return;
+        }
+        ids[index] = id;
+        size++;
+        // Keep the load factor under 0.5
+        if (size * 2 > ids.length) {
+            rehash(ids.length * 2);
+        }
+    }
+
+    private void remove(long id) {
+        if (id == FREE) {
+            if (containsZero) {
+                containsZero = false;
+                size--;
+            }
+            return;
+        }
+        int index = indexOf(id);
+        if (ids[index] != id) {
+            return;
+        }
+        ids[index] = FREE;
+        size--;
+
+        // Shift back the following ids of the probe sequence, so lookups do not stop early
+        int mask = ids.length - 1;
+        int free = index;
+        int i = (index + 1) & mask;
+        while (ids[i] != FREE) {
+            int home = hash(ids[i]) & mask;
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                ids[free] = ids[i];
+                ids[i] = FREE;
+                free = i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Return the slot holding the id, or the free slot where it would be inserted.
+     */
+    private int indexOf(long id) {
+        int mask = ids.length - 1;
+        int index = hash(id) & mask;
+        while (ids[index] != FREE && ids[index] != id) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldIds = ids;
+        ids = new long[capacity];
+        for (long id : oldIds) {
+            if (id != FREE) {
+                ids[indexOf(id)] = id;
+            }
+        }
+    }
+
+    private static int hash(long id) {
+        // Spread sequential ids over the table
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Save a snapshot of the checked ids to the given file, through a memory-mapped buffer.
+     * The file is written next to the target and then renamed, so a crash never leaves it
+     * half written. Changes made after the last call are not in the file.
+     */
+    public void save(@NonNull File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        long length = FILE_HEADER_SIZE + (long) size * Long.BYTES;
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(tmpFile, "rw")) {
+            randomAccessFile.setLength(length);
+            MappedByteBuffer buffer = randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(FILE_MAGIC);
+            buffer.putInt(FILE_VERSION);
+            buffer.putInt(size);
+            if (containsZero) {
+                buffer.putLong(FREE);
+            }
+            for (long id : ids) {
+                if (id != FREE) {
+                    buffer.putLong(id);
+                }
+            }
+            buffer.force();
+        }
+        if (!tmpFile.renameTo(file)) {
+            throw new IOException("Failed to rename " + tmpFile + " to " + file);
+        }
+    }
+
+    /**
+     * Load a store previously written with {@link #save(File)}, or return an empty store if the
+     * file does not exist.
+     */
+    @NonNull
+    public static TMButtonStateStore load(@NonNull File file) throws IOException {
+        TMButtonStateStore store = new TMButtonStateStore();
+        if (!file.exists()) {
+            return store;
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer buffer = randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+            if (buffer.remaining() < FILE_HEADER_SIZE
+                    || buffer.getInt() != FILE_MAGIC
+                    || buffer.getInt() != FILE_VERSION) {
+                throw new IOException("Not a TMButtonStateStore file: " + file);
+            }
+            int count = buffer.getInt();
+            if (count < 0 || buffer.remaining() < (long) count * Long.BYTES) {
+                throw new IOException("Truncated TMButtonStateStore file: " + file);
+            }
+            int capacity = MIN_CAPACITY;
+            while (capacity < count * 2 + 1) {
+                capacity *= 2;
+            }
+            store.ids = new long[capacity];
+            for (int i = 0; i < count; i++) {
+                store.add(buffer.getLong());
+            }
+        }
+        return store;
+    }
+}
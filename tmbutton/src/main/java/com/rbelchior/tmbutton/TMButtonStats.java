@@ -0,0 +1,167 @@
+package com.rbelchior.tmbutton;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Opt-in event counters of every {@link TMButton}, for profiling: how often buttons are
+ * inflated, change state, animate, are cancelled mid-animation, are touched, laid out and drawn.
+ * </p>
+ * <p>
+ * Counting is disabled by default and then costs a single flag check per event. Once enabled,
+ * global counters are striped by thread to avoid contention with background inflation, and each
+ * button keeps its own counts, see {@link #snapshot(TMButton)}.
+ * </p>
+ */
+public final class TMButtonStats {
+
+    public static final int EVENT_INFLATE = 0;
+    public static final int EVENT_SET_CHECKED = 1;
+    public static final int EVENT_ANIMATE_CHECK = 2;
+    public static final int EVENT_ANIMATE_UNCHECK = 3;
+    /**
+     * A color animation cancelled before its end.
+     */
+    public static final int EVENT_CANCEL = 4;
+    public static final int EVENT_TOUCH = 5;
+    public static final int EVENT_REQUEST_LAYOUT = 6;
+    public static final int EVENT_LAYOUT = 7;
+    public static final int EVENT_DRAW = 8;
+
+    static final int EVENT_COUNT = 9;
+
+    private static final String[] EVENT_NAMES = {
+            "inflate", "setChecked", "animateCheck", "animateUncheck", "cancel",
+            "touch", "requestLayout", "layout", "draw"
+    };
+
+    /**
+     * Number of stripes, a power of two.
+     */
+    private static final int STRIPES = 4;
+
+    private static final AtomicLongArray counters = new AtomicLongArray(STRIPES * EVENT_COUNT);
+
+    private static volatile boolean enabled;
+
+    private TMButtonStats() {
+    }
+
+    /**
+     * Start or stop counting. Counts are kept when disabled, see {@link #reset()}.
+     */
+    public static void setEnabled(boolean enabled) {
+        TMButtonStats.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Count an event of the given button, if enabled.
+     */
+    static void record(@NonNull TMButton button, int event) {
+        if (!enabled) {
+            return;
+        }
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        counters.incrementAndGet(stripe * EVENT_COUNT + event);
+
+        long[] counts = button.statsCounts;
+        if (counts == null) {
+            counts = new long[EVENT_COUNT];
+            button.statsCounts = counts;
+        }
+        counts[event]++;
+    }
+
+    /**
+     * Return the counts of all buttons since the last {@link #reset()}.
+     */
+    @NonNull
+    public static Snapshot snapshot() {
+        long[] counts = new long[EVENT_COUNT];
+        for (int i = 0; i < counters.length(); i++) {
+            counts[i % EVENT_COUNT] += counters.get(i);
+        }
+        return new Snapshot(counts);
+    }
+
+    /**
+     * Return the counts of the given button since it was created. Must be called from the UI thread.
+     */
+    @NonNull
+    public static Snapshot snapshot(@NonNull TMButton button) {
+        long[] counts = button.statsCounts;
+        return new Snapshot(counts == null ? new long[EVENT_COUNT] : counts.clone());
+    }
+
+    /**
+     * Reset the global counts. Counts of existing buttons are kept.
+     */
+    public static void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * Write the global counts, one event per line.
+     */
+    public static void dump(@NonNull Writer writer) throws IOException {
+        Snapshot snapshot = snapshot();
+        for (int event = 0; event < EVENT_COUNT; event++) {
+            writer.write(EVENT_NAMES[event]);
+            writer.write('=');
+            writer.write(Long.toString(snapshot.get(event)));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Log the global counts with the given tag, at debug level.
+     */
+    public static void dumpToLogcat(@NonNull String tag) {
+        Log.d(tag, snapshot().toString());
+    }
+
+    /**
+     * Counts of each event at a point in time.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        Snapshot(@NonNull long[] counts) {
+            this.counts = counts;
+        }
+
+        /**
+         * Return the count of the given event, e.g. {@link #EVENT_DRAW}.
+         */
+        public long get(int event) {
+            return counts[event];
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("TMButtonStats{");
+            for (int event = 0; event < EVENT_COUNT; event++) {
+                if (event > 0) {
+                    builder.append(", ");
+                }
+                builder.append(EVENT_NAMES[event]).append('=').append(counts[event]);
+            }
+            return builder.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,748 @@
+package com.rbelchior.tmbutton;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.Checkable;
+import android.widget.ToggleButton;
+
+import androidx.annotation.AttrRes;
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import androidx.dynamicanimation.animation.FloatPropertyCompat;
+import androidx.dynamicanimation.animation.SpringAnimation;
+
+import com.rbelchior.tmbutton.core.CheckedState;
+import com.rbelchior.tmbutton.core.Interpolation;
+import com.rbelchior.tmbutton.core.TextRules;
+import com.rbelchior.tmbutton.core.Timeline;
+import com.rbelchior.tmbutton.core.TimelineSampler;
+
+/**
+ * <p>
+ * Flat variant of {@link TMButton}: the icon, the shadow burst and the optional label are drawn
+ * directly on a single {@link Canvas}, instead of being laid out as nested views.
+ * Use it in long lists, where the measure, layout and draw cost of every extra view adds up.
+ * </p>
+ * <p>It accepts the same XML attributes as {@link TMButton}. The label is placed before the icon
+ * in the layout direction, and is reported to accessibility services with the checked state.</p>
+ * <p>Animations run on the shared {@link TMButtonAnimationClock} and count against the budget of
+ * {@link TMButtonAnimationGovernor}, like those of {@link TMButton}.</p>
+ * <p><strong>Note:</strong> Make sure to call <code>android:clipChildren="false"</code> on the parent
+ * layout, otherwise the scaling animation will not occur.</p>
+ */
+public class TMButtonView extends View implements Checkable {
+
+    private static final float SCALE_FACTOR = 2.5f;
+    private static final int DURATION_COLOR = 300;
+    private static final int DURATION_SHADOW_ANIM = 500;
+
+    private static final int CHANNEL_COLOR = 0;
+    private static final int CHANNEL_SHADOW = 1;
+
+    /**
+     * Timelines of the shadow burst, shared by all views as their range never changes.
+     */
+    private static final Timeline SHADOW_SCALE = new Timeline(Interpolation.DECELERATE, 2.0f, 1f, SCALE_FACTOR);
+    private static final Timeline SHADOW_ALPHA = new Timeline(Interpolation.DECELERATE, 2.0f, 1f, 0f);
+
+    private final TextPaint textPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+    @ColorInt
+    private int textColor;
+    private final Rect iconBounds = new Rect();
+
+    /**
+     * Receives the frames of the color and shadow animations from {@link TMButtonAnimationClock},
+     * created on the first animated change.
+     */
+    @Nullable
+    private AnimationTarget animationTarget;
+
+    /**
+     * True while an animation counts against {@link TMButtonAnimationGovernor}.
+     */
+    private boolean holdingAnimationSlot;
+
+    @Nullable
+    private SpringAnimation pressSpring;
+
+    /**
+     * Checked state, with the broadcast guard.
+     */
+    private final CheckedState state = new CheckedState();
+
+    private int colorUnchecked;
+    private int colorChecked;
+    private String textChecked;
+    private String textUnchecked;
+    private int drawablePadding;
+
+    private Drawable checkedDrawable;
+
+    @Nullable
+    private Drawable uncheckedDrawable;
+
+    /**
+     * Copy of {@link #checkedDrawable}, drawn with its own alpha and color filter for the burst.
+     */
+    @Nullable
+    private Drawable shadowDrawable;
+
+    /**
+     * Color of the icon shown, from 0 ({@link #colorUnchecked}) to 1 ({@link #colorChecked}),
+     * with the range of the running color animation.
+     */
+    private float iconColorFraction;
+    private final Timeline colorTimeline = new Timeline(Interpolation.ACCELERATE_DECELERATE, 0f, 0f, 0f);
+
+    @Nullable
+    private ColorFilterTable colorFilterTable;
+
+    /**
+     * Linear fraction of the shadow burst, from 0 to 1. The burst is only drawn in between.
+     */
+    private float shadowFraction = 1f;
+    private float pressScale = 1f;
+
+    private OnCheckedChangeListener onCheckedChangeListener;
+
+    public TMButtonView(@NonNull Context context) {
+        this(context, null, 0);
+    }
+
+    public TMButtonView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public TMButtonView(@NonNull Context context, @Nullable AttributeSet attrs, @AttrRes int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context, attrs);
+    }
+
+    private void init(Context context, AttributeSet attrs) {
+        textColor = LabelAppearance.apply(context, -1, textPaint);
+        colorUnchecked = Color.LTGRAY;
+        colorChecked = Color.MAGENTA;
+
+        initAttrs(context, attrs);
+
+        setClickable(true);
+
+        iconColorFraction = 0f;
+        applyIconColor();
+    }
+
+    private void initAttrs(Context context, AttributeSet attrs) {
+        if (attrs == null) {
+            return;
+        }
+
+        TMButtonConfig config = TMButtonConfig.obtain(context, attrs);
+
+        colorUnchecked = config.colorUnchecked;
+        colorChecked = config.colorChecked;
+        initTextAttrs(context, config);
+
+        setIconDrawable(config.newCheckedDrawable(context));
+        Drawable uncheckedDrawable = config.newUncheckedDrawable(context);
+        if (uncheckedDrawable != null) {
+            setUncheckedDrawable(uncheckedDrawable);
+        }
+    }
+
+    private void initTextAttrs(Context context, TMButtonConfig config) {
+        textChecked = TextRules.checkedText(config.textChecked, config.textUnchecked);
+        textUnchecked = TextRules.uncheckedText(config.textChecked, config.textUnchecked);
+        drawablePadding = config.drawablePadding;
+
+        if (config.textAppearanceResId != -1) {
+            textColor = LabelAppearance.apply(context, config.textAppearanceResId, textPaint);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int iconWidth = checkedDrawable == null ? 0 : Math.max(0, checkedDrawable.getIntrinsicWidth());
+        int iconHeight = checkedDrawable == null ? 0 : Math.max(0, checkedDrawable.getIntrinsicHeight());
+        int textWidth = (int) Math.ceil(Math.max(measureText(textChecked), measureText(textUnchecked)));
+        int textHeight = hasText() ? (int) Math.ceil(textPaint.descent() - textPaint.ascent()) : 0;
+        if (textWidth > 0) {
+            textWidth += drawablePadding;
+        }
+
+        int width = getPaddingLeft() + textWidth + iconWidth + getPaddingRight();
+        int height = getPaddingTop() + Math.max(iconHeight, textHeight) + getPaddingBottom();
+        setMeasuredDimension(
+                resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    private float measureText(@Nullable String text) {
+        return TextRules.isEmpty(text) ? 0 : textPaint.measureText(text);
+    }
+
+    private boolean hasText() {
+        return TextRules.hasText(textChecked, textUnchecked);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateIconBounds();
+    }
+
+    @Override
+    public void onRtlPropertiesChanged(int layoutDirection) {
+        super.onRtlPropertiesChanged(layoutDirection);
+        updateIconBounds();
+        invalidate();
+    }
+
+    private boolean isLayoutRtl() {
+        return getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+    }
+
+    /**
+     * Icon is laid out after the label in the layout direction, fit-centered in the remaining
+     * space, like the {@link android.widget.ImageView} of {@link TMButton}.
+     */
+    private void updateIconBounds() {
+        if (checkedDrawable == null || getWidth() == 0) {
+            return;
+        }
+        int left = getPaddingLeft();
+        int right = getWidth() - getPaddingRight();
+        if (hasText()) {
+            int labelWidth = (int) Math.ceil(Math.max(measureText(textChecked), measureText(textUnchecked))) + drawablePadding;
+            if (isLayoutRtl()) {
+                right -= labelWidth;
+            } else {
+                left += labelWidth;
+            }
+        }
+        int top = getPaddingTop();
+        int availableWidth = Math.max(0, right - left);
+        int availableHeight = Math.max(0, getHeight() - getPaddingBottom() - top);
+
+        int intrinsicWidth = checkedDrawable.getIntrinsicWidth();
+        int intrinsicHeight = checkedDrawable.getIntrinsicHeight();
+        int iconWidth = availableWidth;
+        int iconHeight = availableHeight;
+        if (intrinsicWidth > 0 && intrinsicHeight > 0) {
+            float scale = Math.min(availableWidth / (float) intrinsicWidth, availableHeight / (float) intrinsicHeight);
+            iconWidth = Math.round(intrinsicWidth * scale);
+            iconHeight = Math.round(intrinsicHeight * scale);
+        }
+        left += (availableWidth - iconWidth) / 2;
+        top += (availableHeight - iconHeight) / 2;
+        iconBounds.set(left, top, left + iconWidth, top + iconHeight);
+
+        checkedDrawable.setBounds(iconBounds);
+        if (uncheckedDrawable != null) {
+            uncheckedDrawable.setBounds(iconBounds);
+        }
+        if (shadowDrawable != null) {
+            shadowDrawable.setBounds(iconBounds);
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        drawText(canvas);
+        drawIcon(canvas);
+        drawShadow(canvas);
+    }
+
+    private void drawText(Canvas canvas) {
+        String text = getCurrentText();
+        if (TextRules.isEmpty(text)) {
+            return;
+        }
+        textPaint.setColor(state.isChecked() ? colorChecked : textColor);
+        float x = isLayoutRtl()
+                ? getWidth() - getPaddingRight() - textPaint.measureText(text)
+                : getPaddingLeft();
+        float baseline = (getHeight() - textPaint.descent() - textPaint.ascent()) / 2f;
+        canvas.drawText(text, x, baseline, textPaint);
+    }
+
+    private void drawIcon(Canvas canvas) {
+        Drawable icon = isUncheckedDrawableAvailable() && !state.isChecked() ? uncheckedDrawable : checkedDrawable;
+        if (icon == null) {
+            return;
+        }
+        int saveCount = canvas.save();
+        canvas.scale(pressScale, pressScale, iconBounds.exactCenterX(), iconBounds.exactCenterY());
+        icon.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    private void drawShadow(Canvas canvas) {
+        if (!state.isChecked() || shadowFraction >= 1f || shadowDrawable == null) {
+            return;
+        }
+        float scale = SHADOW_SCALE.valueAt(shadowFraction);
+
+        int saveCount = canvas.save();
+        canvas.scale(scale, scale, iconBounds.exactCenterX(), iconBounds.exactCenterY());
+        // Alpha of vectors belongs to the state shared with the icon
+        DrawableCache.drawWithAlpha(canvas, shadowDrawable, Math.round(255 * SHADOW_ALPHA.valueAt(shadowFraction)));
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public boolean performClick() {
+        toggle();
+
+        final boolean handled = super.performClick();
+        if (!handled) {
+            // View only makes a sound effect if the onClickListener was
+            // called, so we'll need to make one here instead.
+            playSoundEffect(SoundEffectConstants.CLICK);
+        }
+
+        return handled;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean result = super.onTouchEvent(event);
+
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                getPressSpring().animateToFinalPosition(PressSpring.SCALE_PRESSED);
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                getPressSpring().animateToFinalPosition(PressSpring.SCALE_RELEASED);
+                break;
+        }
+        return result;
+    }
+
+    @NonNull
+    private SpringAnimation getPressSpring() {
+        if (pressSpring == null) {
+            pressSpring = PressSpring.create(this, PRESS_SCALE);
+        }
+        return pressSpring;
+    }
+
+    private static final FloatPropertyCompat<TMButtonView> PRESS_SCALE = new FloatPropertyCompat<TMButtonView>("pressScale") {
+        @Override
+        public float getValue(TMButtonView view) {
+            return view.pressScale;
+        }
+
+        @Override
+        public void setValue(TMButtonView view, float value) {
+            view.pressScale = value;
+            view.invalidate();
+        }
+    };
+
+    @NonNull
+    private AnimationTarget getAnimationTarget() {
+        if (animationTarget == null) {
+            animationTarget = new AnimationTarget();
+        }
+        return animationTarget;
+    }
+
+    /**
+     * Animate the icon from its current color fraction to the given one. A change of direction
+     * midway starts from the color shown, and only runs the remaining part of the duration.
+     */
+    private void animateIconColor(float targetFraction) {
+        colorTimeline.setRange(iconColorFraction, targetFraction);
+        TMButtonAnimationClock.get().start(getAnimationTarget(), CHANNEL_COLOR,
+                TimelineSampler.partialDuration(DURATION_COLOR, iconColorFraction, targetFraction),
+                TMButtonAnimationGovernor.getDurationScale(getContext()));
+    }
+
+    private void animateShadow() {
+        shadowFraction = 0f;
+        TMButtonAnimationClock.get().start(getAnimationTarget(), CHANNEL_SHADOW, DURATION_SHADOW_ANIM,
+                TMButtonAnimationGovernor.getDurationScale(getContext()));
+    }
+
+    private void cancelShadowAnimation() {
+        if (animationTarget != null) {
+            TMButtonAnimationClock.get().cancel(animationTarget, CHANNEL_SHADOW);
+        }
+        shadowFraction = 1f;
+    }
+
+    /**
+     * Stop both animations where they are and release the slot. Callers apply the state they
+     * need afterwards.
+     */
+    private void cancelAnimations() {
+        if (animationTarget != null) {
+            TMButtonAnimationClock.get().cancel(animationTarget, CHANNEL_COLOR);
+        }
+        cancelShadowAnimation();
+        releaseAnimationSlot();
+    }
+
+    private boolean acquireAnimationSlot() {
+        if (!holdingAnimationSlot) {
+            holdingAnimationSlot = TMButtonAnimationGovernor.tryAcquire(this);
+        }
+        return holdingAnimationSlot;
+    }
+
+    private void releaseAnimationSlot() {
+        if (holdingAnimationSlot) {
+            holdingAnimationSlot = false;
+            TMButtonAnimationGovernor.release();
+        }
+    }
+
+    /**
+     * Applies the frames of both animations without allocating, and holds the slot of
+     * {@link TMButtonAnimationGovernor} until neither of them is running.
+     */
+    private final class AnimationTarget implements TMButtonAnimationClock.Target {
+
+        @Override
+        public void onAnimationFrame(int channel, float fraction, long frameTimeNanos) {
+            if (channel == CHANNEL_COLOR) {
+                setIconColorFraction(colorTimeline.valueAt(fraction));
+            } else {
+                shadowFraction = fraction;
+            }
+            invalidate();
+        }
+
+        @Override
+        public void onAnimationEnd(int channel) {
+            TMButtonAnimationClock clock = TMButtonAnimationClock.get();
+            if (!clock.isRunning(this, CHANNEL_COLOR) && !clock.isRunning(this, CHANNEL_SHADOW)) {
+                releaseAnimationSlot();
+            }
+        }
+    }
+
+    /**
+     * Apply the color filter to the icon drawables. Never called from {@link #onDraw(Canvas)},
+     * since changing a color filter invalidates the drawable.
+     */
+    private void setIconColorFraction(float fraction) {
+        if (iconColorFraction == fraction) {
+            return;
+        }
+        iconColorFraction = fraction;
+        applyIconColor();
+    }
+
+    private void applyIconColor() {
+        ColorFilter colorFilter = getColorFilterTable().get(iconColorFraction);
+        if (checkedDrawable != null) {
+            checkedDrawable.setColorFilter(colorFilter);
+        }
+        if (uncheckedDrawable != null) {
+            uncheckedDrawable.setColorFilter(colorFilter);
+        }
+    }
+
+    @NonNull
+    private ColorFilterTable getColorFilterTable() {
+        if (colorFilterTable == null) {
+            colorFilterTable = ColorFilterTable.obtain(colorUnchecked, colorChecked);
+        }
+        return colorFilterTable;
+    }
+
+    /**
+     * Set the icon drawable
+     *
+     * @param iconDrawable {@link Drawable}
+     */
+    public void setIconDrawable(Drawable iconDrawable) {
+        if (checkedDrawable != null) {
+            checkedDrawable.setCallback(null);
+        }
+        this.checkedDrawable = iconDrawable == null ? null : DrawableCache.prepareForColorFilter(iconDrawable);
+        this.shadowDrawable = null;
+        if (checkedDrawable != null) {
+            checkedDrawable.setCallback(this);
+            Drawable.ConstantState constantState = checkedDrawable.getConstantState();
+            if (constantState != null) {
+                shadowDrawable = DrawableCache.prepareForColorFilter(DrawableCache.newDrawable(getContext(), constantState));
+                shadowDrawable.setColorFilter(getColorFilterTable().get(1f));
+            }
+        }
+        iconColorFraction = state.isChecked() ? 1f : 0f;
+        applyIconColor();
+        updateIconBounds();
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Set the unchecked icon drawable.
+     *
+     * @param uncheckedDrawable {@link Drawable}
+     */
+    public void setUncheckedDrawable(@Nullable Drawable uncheckedDrawable) {
+        if (this.uncheckedDrawable != null) {
+            this.uncheckedDrawable.setCallback(null);
+        }
+        this.uncheckedDrawable = uncheckedDrawable == null ? null
+                : DrawableCache.prepareForColorFilter(uncheckedDrawable);
+        if (this.uncheckedDrawable != null) {
+            this.uncheckedDrawable.setCallback(this);
+            this.uncheckedDrawable.setColorFilter(getColorFilterTable().get(iconColorFraction));
+        }
+        updateIconBounds();
+        invalidate();
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == checkedDrawable || who == uncheckedDrawable || super.verifyDrawable(who);
+    }
+
+    /**
+     * Set the color for state unchecked
+     * (Does not update immediately, call setChecked with forceUpdate=true, to force an update)
+     *
+     * @param color packed color int, AARRGGBB
+     */
+    public void setColorUnchecked(@ColorInt int color) {
+        this.colorUnchecked = color;
+        this.colorFilterTable = null;
+    }
+
+    /**
+     * Set the color for state checked.
+     * (Does not update immediately, call setChecked with forceUpdate=true, to force an update)
+     *
+     * @param color packed color int, AARRGGBB
+     */
+    public void setColorChecked(@ColorInt int color) {
+        this.colorChecked = color;
+        this.colorFilterTable = null;
+        if (shadowDrawable != null) {
+            shadowDrawable.setColorFilter(getColorFilterTable().get(1f));
+        }
+    }
+
+    /**
+     * Change the checked state of the view.
+     * Calls {@link #setChecked(boolean, boolean)} with given state, but <code>animateChange=false</code>
+     *
+     * @param checked new checked state
+     */
+    @Override
+    public void setChecked(boolean checked) {
+        setChecked(checked, false);
+    }
+
+    /**
+     * Change the checked state of the view
+     *
+     * @param checked       new checked state
+     * @param animateChange if true, animates the state change.
+     */
+    public void setChecked(boolean checked, boolean animateChange) {
+        setChecked(checked, animateChange, false);
+    }
+
+    /**
+     * Change the checked state of the view
+     *
+     * @param checked       new checked state
+     * @param animateChange if true, animates the state change
+     * @param forceUpdate   if true, forces an update of the drawable, otherwise skip changes when
+     *                      already (un)checked.
+     */
+    public void setChecked(boolean checked, boolean animateChange, boolean forceUpdate) {
+        if (!state.needsChange(checked, forceUpdate)) {
+            return;
+        }
+        applyChecked(checked, animateChange);
+
+        // Avoid infinite recursions if setChecked() is called from a listener
+        if (!state.beginBroadcast()) {
+            return;
+        }
+
+        if (onCheckedChangeListener != null) {
+            onCheckedChangeListener.onCheckedChanged(this, state.isChecked());
+        }
+        state.endBroadcast();
+    }
+
+    private void applyChecked(boolean checked, boolean animateChange) {
+        if (animateChange) {
+            // Keeps the slot of a running animation
+            animateChange = acquireAnimationSlot();
+        }
+        state.setChecked(checked);
+
+        if (animateChange) {
+            if (checked) {
+                animateShadow();
+            } else {
+                cancelShadowAnimation();
+            }
+            animateIconColor(checked ? 1f : 0f);
+        } else {
+            cancelAnimations();
+            setIconColorFraction(checked ? 1f : 0f);
+        }
+        ViewCompat.postInvalidateOnAnimation(this);
+    }
+
+    /**
+     * Return true if the optional {@link #uncheckedDrawable} was provided, either by XML
+     * attribute {@link R.attr#unchecked_drawable} or setter {@link #setUncheckedDrawable(Drawable)}.
+     */
+    private boolean isUncheckedDrawableAvailable() {
+        return uncheckedDrawable != null;
+    }
+
+    @Override
+    public boolean isChecked() {
+        return state.isChecked();
+    }
+
+    @Nullable
+    private String getCurrentText() {
+        return state.isChecked() ? textChecked : textUnchecked;
+    }
+
+    @Override
+    public void onInitializeAccessibilityEvent(AccessibilityEvent event) {
+        super.onInitializeAccessibilityEvent(event);
+        event.setClassName(ToggleButton.class.getName());
+        event.setChecked(state.isChecked());
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        // The label is only drawn, so it is added as the text of the view
+        String text = getCurrentText();
+        if (!TextRules.isEmpty(text)) {
+            event.getText().add(text);
+        }
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        info.setClassName(ToggleButton.class.getName());
+        info.setCheckable(true);
+        info.setChecked(state.isChecked());
+        String text = getCurrentText();
+        if (!TextRules.isEmpty(text)) {
+            info.setText(text);
+        }
+    }
+
+    /**
+     * Change the checked state of the view to the inverse of its current state.
+     * The state change is animated.
+     */
+    @Override
+    public void toggle() {
+        setChecked(!state.isChecked(), true);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // Frames are not drawn once detached: snap to the state instead
+        cancelAnimations();
+        setIconColorFraction(state.isChecked() ? 1f : 0f);
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        savedState.checked = state.isChecked();
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        // Restored without notifying the listener, as TMButton
+        applyChecked(savedState.checked, false);
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when the checked state
+     * of a {@link TMButtonView} changed.
+     */
+    public interface OnCheckedChangeListener {
+        /**
+         * Called when the checked state of a {@link TMButtonView} has changed.
+         *
+         * @param buttonView The view whose state has changed.
+         * @param isChecked  The new checked state of buttonView.
+         */
+        void onCheckedChanged(TMButtonView buttonView, boolean isChecked);
+    }
+
+    public void setOnCheckedChangeListener(OnCheckedChangeListener onCheckedChangeListener) {
+        this.onCheckedChangeListener = onCheckedChangeListener;
+    }
+
+    static class SavedState extends BaseSavedState {
+
+        boolean checked;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            checked = in.readInt() != 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(checked ? 1 : 0);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+}
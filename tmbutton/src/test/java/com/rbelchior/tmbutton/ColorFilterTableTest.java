@@ -0,0 +1,60 @@
+package com.rbelchior.tmbutton;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColorFilterTableTest {
+
+    @Test
+    public void blend_returnsEndColors() {
+        assertEquals(0xff112233, ColorFilterTable.blend(0xff112233, 0x80445566, 0f));
+        assertEquals(0x80445566, ColorFilterTable.blend(0xff112233, 0x80445566, 1f));
+    }
+
+    @Test
+    public void blend_interpolatesEachChannel() {
+        assertEquals(0xff808080, ColorFilterTable.blend(0xff000000, 0xffffffff, 0.5f));
+        assertEquals(0x80ff0000, ColorFilterTable.blend(0x00ff0000, 0xffff0000, 0.5f));
+        assertEquals(0xff40bf00, ColorFilterTable.blend(0xff00ff00, 0xffff0000, 0.25f));
+    }
+
+    @Test
+    public void blend_keepsAlphaAboveSignBit() {
+        // Alpha is read unsigned, so opaque colors do not blend through negative values
+        assertEquals(0xfeff0000, ColorFilterTable.blend(0xfeff0000, 0xffff0000, 0.4f));
+        assertEquals(0xffff0000, ColorFilterTable.blend(0xfeff0000, 0xffff0000, 0.6f));
+    }
+
+    @Test
+    public void get_clampsFractionsOutOfRange() {
+        ColorFilterTable table = ColorFilterTable.obtain(0xffaaaaaa, 0xffbb0000);
+
+        assertSame(table.get(0f), table.get(-0.5f));
+        assertSame(table.get(0f), table.get(Float.NEGATIVE_INFINITY));
+        assertSame(table.get(1f), table.get(1.5f));
+        assertSame(table.get(1f), table.get(Float.POSITIVE_INFINITY));
+        assertNotSame(table.get(0f), table.get(1f));
+    }
+
+    @Test
+    public void get_roundsToClosestStep() {
+        ColorFilterTable table = ColorFilterTable.obtain(0xffaaaaaa, 0xffbb0000);
+
+        assertSame(table.get(0f), table.get(0.4f / 64));
+        assertSame(table.get(1f / 64), table.get(0.6f / 64));
+        assertSame(table.get(0.5f), table.get(32.4f / 64));
+        assertNotSame(table.get(0f), table.get(1f / 64));
+    }
+
+    @Test
+    public void obtain_sharesTablesBetweenSameColors() {
+        assertSame(ColorFilterTable.obtain(0xff000000, 0xffffffff), ColorFilterTable.obtain(0xff000000, 0xffffffff));
+        assertNotSame(ColorFilterTable.obtain(0xff000000, 0xffffffff), ColorFilterTable.obtain(0xffffffff, 0xff000000));
+    }
+}
@@ -0,0 +1,53 @@
+package com.rbelchior.tmbutton;
+
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+import com.rbelchior.tmbutton.core.Interpolation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the curves of the animation clock match the framework interpolators they replaced.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class InterpolationTest {
+
+    private static final int STEPS = 1000;
+    private static final float TOLERANCE = 1e-6f;
+
+    @Test
+    public void linear_matchesLinearInterpolator() {
+        assertMatches(new LinearInterpolator(), Interpolation.LINEAR, 0f);
+    }
+
+    @Test
+    public void accelerateDecelerate_matchesAccelerateDecelerateInterpolator() {
+        assertMatches(new AccelerateDecelerateInterpolator(), Interpolation.ACCELERATE_DECELERATE, 0f);
+    }
+
+    @Test
+    public void decelerate_matchesDecelerateInterpolator() {
+        assertMatches(new DecelerateInterpolator(), Interpolation.DECELERATE, 1.0f);
+    }
+
+    @Test
+    public void decelerateFactor2_matchesDecelerateInterpolator() {
+        // Shadow of the button
+        assertMatches(new DecelerateInterpolator(2.0f), Interpolation.DECELERATE, 2.0f);
+    }
+
+    private static void assertMatches(Interpolator expected, int curve, float factor) {
+        for (int i = 0; i <= STEPS; i++) {
+            float input = (float) i / STEPS;
+            assertEquals("At " + input, expected.getInterpolation(input),
+                    Interpolation.interpolate(curve, factor, input), TOLERANCE);
+        }
+    }
+}
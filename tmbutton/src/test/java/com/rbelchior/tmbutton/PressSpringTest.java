@@ -0,0 +1,125 @@
+package com.rbelchior.tmbutton;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Feeds touch streams to a button and checks that the press spring never jumps between frames,
+ * whatever the timing of the events.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PressSpringTest {
+
+    private static final long FRAME_MS = 16;
+    /**
+     * Largest change of scale in one frame: the spring moves by about 0.08 per frame at most
+     * between the pressed and released scales, while a restart from scratch jumps by up to 0.3.
+     */
+    private static final float MAX_FRAME_DELTA = 0.15f;
+
+    private ActivityController<Activity> activityController;
+    private TMButton button;
+    private View iconView;
+
+    private float lastScale;
+    private float minScale;
+
+    @Before
+    public void setUp() {
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        Activity activity = activityController.get();
+        FrameLayout content = new FrameLayout(activity);
+        button = new TMButton(activity);
+        button.setIconDrawable(new ColorDrawable(Color.BLACK));
+        content.addView(button, new FrameLayout.LayoutParams(96, 96));
+        activity.setContentView(content);
+        shadowOf(Looper.getMainLooper()).idle();
+        iconView = ((ViewGroup) button.getChildAt(0)).getChildAt(0);
+        lastScale = iconView.getScaleX();
+        minScale = lastScale;
+    }
+
+    @After
+    public void tearDown() {
+        activityController.pause().stop().destroy();
+    }
+
+    @Test
+    public void pressAndRelease_settlesAtRest() {
+        touch(MotionEvent.ACTION_DOWN);
+        runFrames(20);
+        assertEquals(PressSpring.SCALE_PRESSED, lastScale, 0.02f);
+
+        touch(MotionEvent.ACTION_CANCEL);
+        runFrames(60);
+
+        assertEquals(PressSpring.SCALE_RELEASED, lastScale, 0.001f);
+        assertEquals(lastScale, iconView.getScaleY(), 0f);
+    }
+
+    @Test
+    public void rapidTaps_keepFramesContinuous() {
+        int[] frameGaps = {1, 2, 3, 5};
+        for (int gap : frameGaps) {
+            touch(MotionEvent.ACTION_DOWN);
+            runFrames(gap);
+            touch(MotionEvent.ACTION_CANCEL);
+            runFrames(gap);
+        }
+        // Events between two frames only move the final position
+        touch(MotionEvent.ACTION_DOWN);
+        touch(MotionEvent.ACTION_CANCEL);
+        touch(MotionEvent.ACTION_DOWN);
+        runFrames(3);
+        touch(MotionEvent.ACTION_CANCEL);
+        runFrames(60);
+
+        assertTrue("Spring never moved", minScale < 0.95f);
+        assertEquals(PressSpring.SCALE_RELEASED, lastScale, 0.001f);
+    }
+
+    private void touch(int action) {
+        long now = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(now, now, action, 48f, 48f, 0);
+        try {
+            button.onTouchEvent(event);
+        } finally {
+            event.recycle();
+        }
+    }
+
+    /**
+     * Run the given number of frames, checking the scale after each one.
+     */
+    private void runFrames(int count) {
+        for (int i = 0; i < count; i++) {
+            shadowOf(Looper.getMainLooper()).idleFor(FRAME_MS, TimeUnit.MILLISECONDS);
+            float scale = iconView.getScaleX();
+            assertTrue("Scale jumped from " + lastScale + " to " + scale,
+                    Math.abs(scale - lastScale) <= MAX_FRAME_DELTA);
+            lastScale = scale;
+            minScale = Math.min(minScale, scale);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.rbelchior.tmbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class RenderNodeTintDrawableTest {
+
+    private ColorDrawable icon;
+    private RenderNodeTintDrawable drawable;
+    private Canvas softwareCanvas;
+    private int invalidations;
+
+    @Before
+    public void setUp() {
+        icon = new ColorDrawable(Color.BLACK);
+        drawable = new RenderNodeTintDrawable(icon);
+        drawable.setBounds(0, 0, 24, 24);
+        drawable.setCallback(new Drawable.Callback() {
+            @Override
+            public void invalidateDrawable(@NonNull Drawable who) {
+                invalidations++;
+            }
+
+            @Override
+            public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+            }
+
+            @Override
+            public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+            }
+        });
+        softwareCanvas = new Canvas(Bitmap.createBitmap(24, 24, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void drawOnSoftwareCanvas_doesNotInvalidate() {
+        drawable.setColor(ColorFilterTable.obtain(Color.GRAY, Color.RED), 0.5f);
+        invalidations = 0;
+
+        drawable.draw(softwareCanvas);
+        drawable.draw(softwareCanvas);
+
+        assertEquals(0, invalidations);
+    }
+
+    @Test
+    public void setColor_invalidatesOncePerChange() {
+        ColorFilterTable table = ColorFilterTable.obtain(Color.GRAY, Color.RED);
+
+        drawable.setColor(table, 0.5f);
+        drawable.draw(softwareCanvas);
+        drawable.setColor(table, 0.5f);
+        drawable.setColor(table, 1f);
+        drawable.draw(softwareCanvas);
+
+        assertEquals(2, invalidations);
+    }
+
+    @Test
+    public void iconInvalidation_isForwarded() {
+        drawable.setColor(ColorFilterTable.obtain(Color.GRAY, Color.RED), 0f);
+        drawable.draw(softwareCanvas);
+        invalidations = 0;
+
+        drawable.invalidateDrawable(drawable);
+
+        assertEquals(1, invalidations);
+    }
+
+    @Test
+    public void setAlpha_leavesSharedIconAlone() {
+        drawable.setColor(ColorFilterTable.obtain(Color.GRAY, Color.RED), 0.5f);
+        invalidations = 0;
+
+        drawable.setAlpha(128);
+        drawable.draw(softwareCanvas);
+        drawable.setAlpha(128);
+
+        assertEquals(128, drawable.getAlpha());
+        assertEquals(255, icon.getAlpha());
+        assertEquals(1, invalidations);
+    }
+}
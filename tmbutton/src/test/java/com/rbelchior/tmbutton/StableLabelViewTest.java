@@ -0,0 +1,85 @@
+package com.rbelchior.tmbutton;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class StableLabelViewTest {
+
+    private StableLabelView label;
+
+    @Before
+    public void setUp() {
+        label = new StableLabelView(RuntimeEnvironment.getApplication(), -1);
+        label.setText("Liked", "Like");
+    }
+
+    @Test
+    public void contentDescription_isTextShown() {
+        assertEquals("Like", label.getContentDescription());
+
+        label.setCheckedFraction(1f);
+
+        assertEquals("Liked", label.getContentDescription());
+    }
+
+    @Test
+    public void contentDescription_changesOnceSettled() {
+        label.setCheckedFraction(0.4f);
+        label.setCheckedFraction(0.9f);
+        assertEquals("Like", label.getContentDescription());
+
+        label.setCheckedFraction(1f);
+        label.setCheckedFraction(0.5f);
+        assertEquals("Liked", label.getContentDescription());
+
+        label.setCheckedFraction(0f);
+        assertEquals("Like", label.getContentDescription());
+    }
+
+    @Test
+    public void contentDescription_followsNewTexts() {
+        label.setCheckedFraction(1f);
+
+        label.setText("Saved", "Save");
+
+        assertEquals("Saved", label.getContentDescription());
+    }
+
+    @Test
+    public void ltr_textsStartAfterStartPadding() {
+        label.setPaddingRelative(10, 0, 20, 0);
+        layout(300);
+
+        assertEquals(10f, label.getTextLeft(true), 0f);
+        assertEquals(10f, label.getTextLeft(false), 0f);
+    }
+
+    @Test
+    public void rtl_textsEndBeforeStartPadding() {
+        label.setLayoutDirection(View.LAYOUT_DIRECTION_RTL);
+        label.setPaddingRelative(10, 0, 20, 0);
+        label.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+        // The checked text is the longer one
+        int checkedTextWidth = label.getMeasuredWidth() - 30;
+        layout(300);
+
+        // Start padding is on the right
+        assertEquals(300 - 10 - checkedTextWidth, label.getTextLeft(true), 0f);
+        assertTrue(label.getTextLeft(false) >= label.getTextLeft(true));
+    }
+
+    private void layout(int width) {
+        label.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.UNSPECIFIED);
+        label.layout(0, 0, width, label.getMeasuredHeight());
+    }
+}
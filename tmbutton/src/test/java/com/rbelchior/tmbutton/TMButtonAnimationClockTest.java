@@ -0,0 +1,182 @@
+package com.rbelchior.tmbutton;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Looper;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class TMButtonAnimationClockTest {
+
+    private static final int COUNT = 500;
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    @After
+    public void tearDown() {
+        TMButtonAnimationGovernor.setMaxConcurrentAnimations(8);
+    }
+
+    @Test
+    public void manyTargets_startCancelAndRestartFromCallbacks() {
+        TMButtonAnimationClock clock = TMButtonAnimationClock.get();
+        assertEquals(0, clock.getRunningCount());
+        RecordingTarget[] targets = new RecordingTarget[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            targets[i] = new RecordingTarget(clock, i);
+            clock.start(targets[i], 0, 300, 1f);
+        }
+        // Restarting a running animation reuses its slot
+        clock.start(targets[0], 0, 300, 1f);
+        assertEquals(COUNT, clock.getRunningCount());
+
+        for (int i = 0; i < COUNT; i += 5) {
+            assertTrue(clock.cancel(targets[i], 0));
+        }
+        assertFalse(clock.cancel(targets[0], 0));
+        assertEquals(COUNT - COUNT / 5, clock.getRunningCount());
+
+        long frameTimeNanos = TimeUnit.SECONDS.toNanos(1);
+        int frames = 0;
+        while (clock.getRunningCount() > 0) {
+            clock.doFrame(frameTimeNanos);
+            frameTimeNanos += FRAME_NANOS;
+            assertTrue("Animations never end", ++frames < 100);
+        }
+
+        for (int i = 0; i < COUNT; i++) {
+            RecordingTarget target = targets[i];
+            if (i % 5 == 0) {
+                assertEquals("Frames of cancelled " + i, 0, target.frames[0]);
+                assertEquals("Ends of cancelled " + i, 0, target.ends[0]);
+            } else if (i % 5 == 1) {
+                // Cancelled itself halfway
+                assertEquals("Ends of " + i, 0, target.ends[0]);
+                assertFalse(clock.isRunning(target, 0));
+            } else {
+                assertEquals("Ends of " + i, 1, target.ends[0]);
+                assertEquals(1f, target.lastFractions[0], 0f);
+            }
+            if (i % 5 == 2) {
+                assertEquals("Ends of restarted channel of " + i, 1, target.ends[1]);
+                assertEquals(1f, target.lastFractions[1], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void durationScale_stretchesAnimations() {
+        TMButtonAnimationClock clock = TMButtonAnimationClock.get();
+        RecordingTarget scaled = new RecordingTarget(clock, 0);
+        RecordingTarget instant = new RecordingTarget(clock, 0);
+        clock.start(scaled, 0, 100, 2f);
+        clock.start(instant, 0, 100, 0f);
+
+        long start = TimeUnit.SECONDS.toNanos(1);
+        clock.doFrame(start);
+        assertEquals(1, instant.ends[0]);
+        clock.doFrame(start + TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0.5f, scaled.lastFractions[0], 0.001f);
+        clock.doFrame(start + TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1, scaled.ends[0]);
+        assertEquals(0, clock.getRunningCount());
+    }
+
+    @Test
+    public void manyButtons_toggledAtOnce() {
+        ActivityController<Activity> activityController = Robolectric.buildActivity(Activity.class).setup();
+        try {
+            Activity activity = activityController.get();
+            FrameLayout content = new FrameLayout(activity);
+            TMButton[] buttons = new TMButton[COUNT];
+            for (int i = 0; i < COUNT; i++) {
+                buttons[i] = new TMButton(activity);
+                buttons[i].setIconDrawable(new ColorDrawable(Color.BLACK));
+                // Stacked, so each one is on screen
+                content.addView(buttons[i], new FrameLayout.LayoutParams(48, 48));
+            }
+            activity.setContentView(content);
+            shadowOf(Looper.getMainLooper()).idle();
+            TMButtonAnimationClock clock = TMButtonAnimationClock.get();
+            int runningBefore = TMButtonAnimationGovernor.getRunningAnimations();
+            TMButtonAnimationGovernor.setMaxConcurrentAnimations(runningBefore + COUNT);
+
+            for (TMButton button : buttons) {
+                button.setChecked(true, true);
+            }
+            // Color and shadow of each button
+            assertEquals(2 * COUNT, clock.getRunningCount());
+            assertEquals(runningBefore + COUNT, TMButtonAnimationGovernor.getRunningAnimations());
+
+            shadowOf(Looper.getMainLooper()).idleFor(50, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < COUNT; i += 2) {
+                // Reverses the color and cancels the shadow
+                buttons[i].setChecked(false, true);
+            }
+            assertEquals(COUNT + COUNT / 2, clock.getRunningCount());
+
+            shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS);
+
+            assertEquals(0, clock.getRunningCount());
+            assertEquals(runningBefore, TMButtonAnimationGovernor.getRunningAnimations());
+            for (int i = 0; i < COUNT; i++) {
+                assertEquals("Button " + i, i % 2 != 0, buttons[i].isChecked());
+            }
+        } finally {
+            activityController.pause().stop().destroy();
+        }
+    }
+
+    /**
+     * Checks that fractions never go back, and starts or cancels animations from its callbacks.
+     */
+    private static final class RecordingTarget implements TMButtonAnimationClock.Target {
+
+        private final TMButtonAnimationClock clock;
+        private final int index;
+        final int[] frames = new int[2];
+        final int[] ends = new int[2];
+        final float[] lastFractions = {-1f, -1f};
+
+        RecordingTarget(TMButtonAnimationClock clock, int index) {
+            this.clock = clock;
+            this.index = index;
+        }
+
+        @Override
+        public void onAnimationFrame(int channel, float fraction, long frameTimeNanos) {
+            assertTrue("Fraction went back to " + fraction, fraction >= lastFractions[channel]);
+            assertTrue(fraction >= 0f && fraction <= 1f);
+            assertEquals("Frame after the end", 0, ends[channel]);
+            frames[channel]++;
+            lastFractions[channel] = fraction;
+
+            if (channel == 0 && index % 5 == 1 && fraction >= 0.5f) {
+                assertTrue(clock.cancel(this, 0));
+            }
+            if (channel == 0 && index % 5 == 2 && frames[0] == 1) {
+                // Starts a new slot while frames are dispatched
+                clock.start(this, 1, 100, 1f);
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(int channel) {
+            ends[channel]++;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.rbelchior.tmbutton;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Looper;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class TMButtonAnimationGovernorTest {
+
+    private ActivityController<Activity> activityController;
+    private FrameLayout content;
+    private TMButton button;
+    private int runningBefore;
+
+    @Before
+    public void setUp() {
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        Activity activity = activityController.get();
+        content = new FrameLayout(activity);
+        button = new TMButton(activity);
+        button.setIconDrawable(new ColorDrawable(Color.BLACK));
+        content.addView(button, new FrameLayout.LayoutParams(48, 48));
+        activity.setContentView(content);
+        shadowOf(Looper.getMainLooper()).idle();
+        runningBefore = TMButtonAnimationGovernor.getRunningAnimations();
+    }
+
+    @After
+    public void tearDown() {
+        activityController.pause().stop().destroy();
+    }
+
+    @Test
+    public void check_holdsSlotUntilShadowEnds() {
+        TMButtonAnimationClock clock = TMButtonAnimationClock.get();
+        button.setChecked(true, true);
+        assertEquals(runningBefore + 1, TMButtonAnimationGovernor.getRunningAnimations());
+
+        // The color ends first, the shadow burst still runs
+        shadowOf(Looper.getMainLooper()).idleFor(400, TimeUnit.MILLISECONDS);
+        assertEquals(1, clock.getRunningCount());
+        assertEquals(runningBefore + 1, TMButtonAnimationGovernor.getRunningAnimations());
+
+        shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS);
+        assertEquals(0, clock.getRunningCount());
+        assertEquals(runningBefore, TMButtonAnimationGovernor.getRunningAnimations());
+    }
+
+    @Test
+    public void detach_cancelsBothAnimationsAndReleasesSlot() {
+        button.setChecked(true, true);
+        shadowOf(Looper.getMainLooper()).idleFor(50, TimeUnit.MILLISECONDS);
+
+        content.removeView(button);
+
+        assertEquals(0, TMButtonAnimationClock.get().getRunningCount());
+        assertEquals(runningBefore, TMButtonAnimationGovernor.getRunningAnimations());
+        assertTrue(button.isChecked());
+    }
+}
@@ -0,0 +1,154 @@
+package com.rbelchior.tmbutton;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class TMButtonGroupTest {
+
+    private TMButtonGroup group;
+    private TMButton first;
+    private TMButton second;
+    private TMButton third;
+
+    @Before
+    public void setUp() {
+        group = new TMButtonGroup();
+        first = new TMButton(RuntimeEnvironment.getApplication());
+        second = new TMButton(RuntimeEnvironment.getApplication());
+        third = new TMButton(RuntimeEnvironment.getApplication());
+    }
+
+    @Test
+    public void setSingleChoice_keepsFirstCheckedMember() {
+        second.setChecked(true);
+        third.setChecked(true);
+        group.add(first);
+        group.add(second);
+        group.add(third);
+
+        group.setSingleChoice(true);
+        assertSame(second, group.getCheckedButton());
+        runFrame();
+
+        assertFalse(first.isChecked());
+        assertTrue(second.isChecked());
+        assertFalse(third.isChecked());
+        assertSame(second, group.getCheckedButton());
+    }
+
+    @Test
+    public void setSingleChoice_withoutCheckedMember() {
+        group.add(first);
+        group.add(second);
+
+        group.setSingleChoice(true);
+
+        assertNull(group.getCheckedButton());
+    }
+
+    @Test
+    public void setChecked_unchecksPreviousMemberWithPendingChange() {
+        group.setSingleChoice(true);
+        group.add(first);
+        group.add(second);
+        group.setChecked(first, true, false);
+        runFrame();
+        assertSame(first, group.getCheckedButton());
+
+        group.setChecked(second, true, false);
+        // Pending when the second one is applied
+        group.setChecked(first, true, false);
+        runFrame();
+
+        assertFalse(first.isChecked());
+        assertTrue(second.isChecked());
+        assertSame(second, group.getCheckedButton());
+    }
+
+    @Test
+    public void tap_unchecksPreviousMember() {
+        group.setSingleChoice(true);
+        group.add(first);
+        group.add(second);
+        first.setChecked(true);
+        runFrame();
+
+        second.setChecked(true);
+        runFrame();
+
+        assertFalse(first.isChecked());
+        assertSame(second, group.getCheckedButton());
+    }
+
+    @Test
+    public void bind_unchecksPreviousMember() {
+        group.setSingleChoice(true);
+        group.add(first);
+        group.add(second);
+        first.bind(true);
+        assertSame(first, group.getCheckedButton());
+
+        second.bind(true);
+
+        assertFalse(first.isChecked());
+        assertTrue(second.isChecked());
+        assertSame(second, group.getCheckedButton());
+    }
+
+    @Test
+    public void setCheckedFromListener_neverReportsTwoCheckedMembers() {
+        group.setSingleChoice(true);
+        group.add(first);
+        group.add(second);
+        group.add(third);
+        int[] reports = new int[1];
+        TMButton.OnCheckedChangeListener listener = (button, isChecked) -> {
+            reports[0]++;
+            assertEquals("Checked members reported to " + button, isChecked ? 1 : 0, countChecked());
+            if (reports[0] == 1) {
+                // Nested change of another member during the dispatch
+                second.setChecked(true);
+            }
+        };
+        first.setOnCheckedChangeListener(listener);
+        second.setOnCheckedChangeListener(listener);
+        third.setOnCheckedChangeListener(listener);
+
+        first.setChecked(true);
+        assertFalse(first.isChecked());
+        assertTrue(second.isChecked());
+        assertSame(second, group.getCheckedButton());
+
+        // Re-entrant change of the member being dispatched
+        third.setOnCheckedChangeListener((button, isChecked) -> first.setChecked(true));
+        third.setChecked(true);
+        assertTrue(first.isChecked());
+        assertFalse(second.isChecked());
+        assertFalse(third.isChecked());
+        assertSame(first, group.getCheckedButton());
+        assertEquals(3, reports[0]);
+    }
+
+    private int countChecked() {
+        return (first.isChecked() ? 1 : 0) + (second.isChecked() ? 1 : 0) + (third.isChecked() ? 1 : 0);
+    }
+
+    private static void runFrame() {
+        shadowOf(Looper.getMainLooper()).idleFor(100, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,128 @@
+package com.rbelchior.tmbutton;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class TMButtonIconPrefetcherTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<Drawable> loadedIcons = new ArrayList<>();
+
+    private TMButtonIconLoader loader;
+    private TMButtonIconPrefetcher prefetcher;
+
+    @Before
+    public void setUp() {
+        prefetcher = new TMButtonIconPrefetcher(RuntimeEnvironment.getApplication(),
+                key -> loader.load(key), tasks::add, 8);
+    }
+
+    @Test
+    public void load_canRetryAfterLoaderThrows() {
+        loader = key -> {
+            throw new IllegalStateException("Failed to load " + key);
+        };
+        prefetcher.load("icon", this::onIconLoaded);
+        try {
+            runTasks();
+            fail("Expected the loader to throw");
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(0, loadedIcons.size());
+
+        Drawable icon = new ColorDrawable(Color.RED);
+        loader = key -> icon;
+        prefetcher.load("icon", this::onIconLoaded);
+        assertEquals(1, tasks.size());
+        runTasks();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(1, loadedIcons.size());
+        assertSame(icon, loadedIcons.get(0));
+    }
+
+    @Test
+    public void load_givesEachListenerItsOwnIcon() {
+        Drawable icon = new ColorDrawable(Color.RED);
+        loader = key -> icon;
+        prefetcher.load("icon", this::onIconLoaded);
+        prefetcher.load("icon", this::onIconLoaded);
+        assertEquals(1, tasks.size());
+
+        runTasks();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(2, loadedIcons.size());
+        assertSame(icon, loadedIcons.get(0));
+        assertNotSame(icon, loadedIcons.get(1));
+        assertNotNull(prefetcher.getCached("icon"));
+    }
+
+    @Test
+    public void load_withoutConstantState_onlyNotifiesFirstListener() {
+        Drawable icon = new ColorDrawable(Color.RED) {
+            @Override
+            public ConstantState getConstantState() {
+                return null;
+            }
+        };
+        loader = key -> icon;
+        prefetcher.load("icon", this::onIconLoaded);
+        prefetcher.load("icon", this::onIconLoaded);
+
+        runTasks();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(1, loadedIcons.size());
+        assertSame(icon, loadedIcons.get(0));
+        assertNull(prefetcher.getCached("icon"));
+    }
+
+    @Test
+    public void prefetch_withoutListener() {
+        loader = key -> new ColorDrawable(Color.RED) {
+            @Override
+            public ConstantState getConstantState() {
+                return null;
+            }
+        };
+        prefetcher.prefetch("icon");
+
+        runTasks();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(0, loadedIcons.size());
+    }
+
+    private void onIconLoaded(Object key, Drawable drawable) {
+        loadedIcons.add(drawable);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.rbelchior.tmbutton;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TMButtonStateStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void setChecked_addsAndRemovesIds() {
+        TMButtonStateStore store = new TMButtonStateStore();
+
+        store.setChecked(42, true);
+        store.setChecked(42, true);
+        store.setChecked(-7, true);
+
+        assertTrue(store.isChecked(42));
+        assertTrue(store.isChecked(-7));
+        assertFalse(store.isChecked(43));
+        assertEquals(2, store.size());
+
+        store.setChecked(42, false);
+        store.setChecked(42, false);
+
+        assertFalse(store.isChecked(42));
+        assertTrue(store.isChecked(-7));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void setChecked_tracksIdZero() {
+        TMButtonStateStore store = new TMButtonStateStore();
+        assertFalse(store.isChecked(0));
+
+        store.setChecked(0, true);
+        store.setChecked(0, true);
+        assertTrue(store.isChecked(0));
+        assertEquals(1, store.size());
+
+        store.setChecked(0, false);
+        assertFalse(store.isChecked(0));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void setChecked_rehashesWhenGrowing() {
+        TMButtonStateStore store = new TMButtonStateStore();
+        for (long id = 1; id <= 100_000; id++) {
+            store.setChecked(id, true);
+        }
+
+        assertEquals(100_000, store.size());
+        for (long id = 1; id <= 100_000; id++) {
+            assertTrue(store.isChecked(id));
+        }
+        assertFalse(store.isChecked(100_001));
+    }
+
+    @Test
+    public void setChecked_keepsProbeSequencesAfterRemovals() {
+        // Few distinct ids in a small table collide often, and removals shift the following ones back
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            TMButtonStateStore store = new TMButtonStateStore();
+            Set<Long> expected = new HashSet<>();
+            for (int i = 0; i < 50; i++) {
+                long id = random.nextInt(24);
+                boolean checked = random.nextInt(3) != 0;
+                store.setChecked(id, checked);
+                if (checked) {
+                    expected.add(id);
+                } else {
+                    expected.remove(id);
+                }
+                assertStoreEquals(expected, store, 24);
+            }
+        }
+    }
+
+    @Test
+    public void clear_unchecksEveryItem() {
+        TMButtonStateStore store = new TMButtonStateStore();
+        store.setChecked(0, true);
+        store.setChecked(1, true);
+
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertFalse(store.isChecked(0));
+        assertFalse(store.isChecked(1));
+    }
+
+    @Test
+    public void saveAndLoad_keepsCheckedIds() throws IOException {
+        TMButtonStateStore store = new TMButtonStateStore();
+        long[] ids = {0, 1, -1, 1234567890123L, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (long id : ids) {
+            store.setChecked(id, true);
+        }
+        for (long id = 100; id < 1000; id++) {
+            store.setChecked(id, true);
+        }
+        File file = folder.newFile("state");
+
+        store.save(file);
+        TMButtonStateStore loaded = TMButtonStateStore.load(file);
+
+        assertEquals(store.size(), loaded.size());
+        for (long id : ids) {
+            assertTrue(loaded.isChecked(id));
+        }
+        for (long id = 100; id < 1000; id++) {
+            assertTrue(loaded.isChecked(id));
+        }
+        assertFalse(loaded.isChecked(2));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void saveAndLoad_emptyStore() throws IOException {
+        File file = folder.newFile("state");
+
+        new TMButtonStateStore().save(file);
+
+        assertEquals(0, TMButtonStateStore.load(file).size());
+    }
+
+    @Test
+    public void load_returnsEmptyStoreWithoutFile() throws IOException {
+        File file = new File(folder.getRoot(), "missing");
+
+        assertEquals(0, TMButtonStateStore.load(file).size());
+    }
+
+    @Test
+    public void load_rejectsTruncatedIds() throws IOException {
+        TMButtonStateStore store = new TMButtonStateStore();
+        store.setChecked(1, true);
+        store.setChecked(2, true);
+        File file = folder.newFile("state");
+        store.save(file);
+        truncate(file, Long.BYTES / 2);
+
+        assertLoadFails(file);
+    }
+
+    @Test
+    public void load_rejectsTruncatedHeader() throws IOException {
+        File file = folder.newFile("state");
+        new TMButtonStateStore().save(file);
+        truncate(file, 1);
+
+        assertLoadFails(file);
+    }
+
+    @Test
+    public void load_rejectsOtherFiles() throws IOException {
+        File file = folder.newFile("state");
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.writeInt(0xcafebabe);
+            randomAccessFile.writeInt(1);
+            randomAccessFile.writeInt(0);
+        }
+
+        assertLoadFails(file);
+    }
+
+    private static void assertStoreEquals(Set<Long> expected, TMButtonStateStore store, int idRange) {
+        assertEquals(expected.size(), store.size());
+        for (long id = 0; id < idRange; id++) {
+            assertEquals("id " + id, expected.contains(id), store.isChecked(id));
+        }
+    }
+
+    private static void truncate(File file, int bytes) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - bytes);
+        }
+    }
+
+    private static void assertLoadFails(File file) {
+        try {
+            TMButtonStateStore.load(file);
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.rbelchior.tmbutton;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Looper;
+import android.os.Parcelable;
+import android.util.SparseArray;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class TMButtonViewTest {
+
+    private ActivityController<Activity> activityController;
+    private FrameLayout content;
+    private TMButtonView view;
+    private int runningBefore;
+
+    @Before
+    public void setUp() {
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        Activity activity = activityController.get();
+        content = new FrameLayout(activity);
+        view = new TMButtonView(activity);
+        view.setId(1);
+        view.setIconDrawable(new ColorDrawable(Color.BLACK));
+        content.addView(view, new FrameLayout.LayoutParams(48, 48));
+        activity.setContentView(content);
+        shadowOf(Looper.getMainLooper()).idle();
+        runningBefore = TMButtonAnimationGovernor.getRunningAnimations();
+    }
+
+    @After
+    public void tearDown() {
+        activityController.pause().stop().destroy();
+    }
+
+    @Test
+    public void animatedCheck_holdsSlotUntilShadowEnds() {
+        TMButtonAnimationClock clock = TMButtonAnimationClock.get();
+        view.setChecked(true, true);
+        // Color and shadow
+        assertEquals(2, clock.getRunningCount());
+        assertEquals(runningBefore + 1, TMButtonAnimationGovernor.getRunningAnimations());
+
+        // Color ended, the shadow still runs
+        shadowOf(Looper.getMainLooper()).idleFor(400, TimeUnit.MILLISECONDS);
+        assertEquals(1, clock.getRunningCount());
+        assertEquals(runningBefore + 1, TMButtonAnimationGovernor.getRunningAnimations());
+
+        shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS);
+        assertEquals(0, clock.getRunningCount());
+        assertEquals(runningBefore, TMButtonAnimationGovernor.getRunningAnimations());
+    }
+
+    @Test
+    public void detach_cancelsAnimationsAndReleasesSlot() {
+        view.setChecked(true, true);
+        shadowOf(Looper.getMainLooper()).idleFor(50, TimeUnit.MILLISECONDS);
+
+        content.removeView(view);
+
+        assertEquals(0, TMButtonAnimationClock.get().getRunningCount());
+        assertEquals(runningBefore, TMButtonAnimationGovernor.getRunningAnimations());
+        assertTrue(view.isChecked());
+    }
+
+    @Test
+    public void listener_setCheckedFromListenerIsNotBroadcastAgain() {
+        int[] calls = new int[1];
+        view.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            calls[0]++;
+            buttonView.setChecked(!isChecked);
+        });
+
+        view.setChecked(true);
+
+        assertEquals(1, calls[0]);
+        assertFalse(view.isChecked());
+    }
+
+    @Test
+    public void savedState_restoresCheckedWithoutNotifying() {
+        view.setChecked(true);
+        SparseArray<Parcelable> container = new SparseArray<>();
+        view.saveHierarchyState(container);
+
+        view.setChecked(false);
+        int[] calls = new int[1];
+        view.setOnCheckedChangeListener((buttonView, isChecked) -> calls[0]++);
+        view.restoreHierarchyState(container);
+
+        assertTrue(view.isChecked());
+        assertEquals(0, calls[0]);
+    }
+}